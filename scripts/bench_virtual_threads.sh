@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Platform vs virtual threads under high concurrency with a slow inference service.
+#
+# Starts a stub inference server that sleeps INFERENCE_DELAY_MS per call, then runs the
+# backend jar twice (SPRING_THREADS_VIRTUAL_ENABLED=false / true) against it and drives
+# /recommendations/{id} with `hey`, printing throughput and latency percentiles for each.
+#
+# Needs: a built jar (./mvnw -DskipTests package), python3, hey, and the usual Postgres/Kafka
+# from docker-compose (the backend won't start without them).
+#
+#   scripts/bench_virtual_threads.sh [concurrency] [requests]
+set -euo pipefail
+
+CONCURRENCY="${1:-1000}"
+REQUESTS="${2:-20000}"
+INFERENCE_DELAY_MS="${INFERENCE_DELAY_MS:-200}"
+STUB_PORT="${STUB_PORT:-18000}"
+APP_PORT="${APP_PORT:-5051}"
+JAR="${JAR:-target/product-service.jar}"
+
+command -v hey >/dev/null || { echo "hey not found (go install github.com/rakyll/hey@latest)"; exit 1; }
+[ -f "$JAR" ] || { echo "$JAR not found, build it first"; exit 1; }
+
+python3 - "$STUB_PORT" "$INFERENCE_DELAY_MS" <<'PY' &
+import json, sys, time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+port, delay = int(sys.argv[1]), int(sys.argv[2]) / 1000.0
+class Stub(BaseHTTPRequestHandler):
+    protocol_version = "HTTP/1.1"
+    def do_POST(self):
+        body = json.loads(self.rfile.read(int(self.headers["Content-Length"])))
+        time.sleep(delay)
+        out = json.dumps({"user_id": body.get("user_id"), "recommendations": [101, 102, 103]}).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(out)))
+        self.end_headers()
+        self.wfile.write(out)
+    def log_message(self, *args):
+        pass
+ThreadingHTTPServer.daemon_threads = True
+ThreadingHTTPServer(("127.0.0.1", port), Stub).serve_forever()
+PY
+STUB_PID=$!
+APP_PID=""
+trap 'kill $STUB_PID ${APP_PID:-} 2>/dev/null || true' EXIT
+
+run() {
+  local virtual="$1"
+  echo "== virtual threads: $virtual (c=$CONCURRENCY n=$REQUESTS inference=${INFERENCE_DELAY_MS}ms) =="
+  SPRING_THREADS_VIRTUAL_ENABLED="$virtual" \
+  INFERENCE_BASE_URL="http://127.0.0.1:$STUB_PORT" \
+  INFERENCE_HTTP_MAX_CONNECTIONS=5000 \
+  INFERENCE_HTTP_MAX_CONNECTIONS_PER_ROUTE=5000 \
+  RECOMMENDATIONS_LATENCY_BUDGET=30s \
+  RECOMMENDATIONS_MAX_IN_FLIGHT=5000 \
+    java -jar "$JAR" --server.port="$APP_PORT" >/tmp/bench-app-"$virtual".log 2>&1 &
+  APP_PID=$!
+
+  until curl -fsS "http://127.0.0.1:$APP_PORT/api/v1/ping" >/dev/null 2>&1; do sleep 1; done
+
+  # warm-up, then the measured run
+  hey -n 2000 -c 200 "http://127.0.0.1:$APP_PORT/recommendations/1" >/dev/null
+  hey -n "$REQUESTS" -c "$CONCURRENCY" "http://127.0.0.1:$APP_PORT/recommendations/1" \
+    | grep -E "Requests/sec|Slowest|Average|  (50|90|95|99)%|\[[0-9]+\]"
+
+  kill "$APP_PID"; wait "$APP_PID" 2>/dev/null || true
+  APP_PID=""
+  echo
+}
+
+run false
+run true
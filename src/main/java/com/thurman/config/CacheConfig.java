@@ -0,0 +1,112 @@
+package com.thurman.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.thurman.product.ProductRepository;
+import com.thurman.product.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Caffeine caches behind ProductService. The full product list is not a cache entry but a
+ * write-through {@link com.thurman.product.ProductCatalog}.
+ * <p>
+ * Every cache is bounded and expires after write. {@code products_by_id} is also refreshed in
+ * the background once older than its {@code refresh-after}, so hot entries are reloaded without
+ * callers waiting on the database; {@code products_pages} (keyset pages) just expires quickly.
+ * {@code products_by_id} also holds "not found" answers (stored as Spring's
+ * {@link NullValue}) for the shorter {@code negative-ttl}, so probing unknown ids doesn't hit
+ * the database every time.
+ * <p>
+ * Stats are recorded, and Boot's cache metrics binder publishes them as {@code cache.gets},
+ * {@code cache.puts}, {@code cache.evictions} and {@code cache.size}, tagged by cache name.
+ * No other caches are created on the fly.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String PRODUCTS_BY_ID = "products_by_id";
+    public static final String PRODUCTS_PAGES = "products_pages";
+
+    @Value("${products.cache.by-id.max-size:10000}")
+    private long byIdMaxSize;
+
+    @Value("${products.cache.by-id.ttl:10m}")
+    private Duration byIdTtl;
+
+    @Value("${products.cache.by-id.refresh-after:1m}")
+    private Duration byIdRefreshAfter;
+
+    @Value("${products.cache.by-id.negative-ttl:30s}")
+    private Duration byIdNegativeTtl;
+
+    @Value("${products.cache.pages.max-size:1000}")
+    private long pagesMaxSize;
+
+    @Value("${products.cache.pages.ttl:30s}")
+    private Duration pagesTtl;
+
+    @Bean
+    public CacheManager cacheManager(ProductRepository productRepository) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Unknown cache names fail fast instead of silently creating unbounded caches
+        cacheManager.setCacheNames(List.of());
+        // Misses are loaded by the caller (cache.get(key, loader)); the loader below only serves
+        // background refreshes.
+        // Values go in as Spring store values: a missing product is NullValue.INSTANCE
+        cacheManager.registerCustomCache(PRODUCTS_BY_ID, Caffeine.newBuilder()
+                .maximumSize(byIdMaxSize)
+                .expireAfter(new NegativeAwareExpiry(byIdTtl, byIdNegativeTtl))
+                .refreshAfterWrite(byIdRefreshAfter)
+                .recordStats()
+                .build(key -> productRepository.findById((UUID) key)
+                        .<Object>map(ProductResponse::from)
+                        .orElse(NullValue.INSTANCE)));
+        // Keyed by ProductPageQuery; cleared on every product write, so a short TTL only
+        // covers writes from other replicas
+        cacheManager.registerCustomCache(PRODUCTS_PAGES, Caffeine.newBuilder()
+                .maximumSize(pagesMaxSize)
+                .expireAfterWrite(pagesTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    /**
+     * Expires positive entries after {@code ttl} and "not found" entries after {@code negativeTtl},
+     * both measured from the last write or refresh.
+     */
+    static final class NegativeAwareExpiry implements Expiry<Object, Object> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        NegativeAwareExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return value instanceof NullValue ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
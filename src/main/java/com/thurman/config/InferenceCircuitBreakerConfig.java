@@ -0,0 +1,79 @@
+package com.thurman.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker around the inference service.
+ * <p>
+ * Opens when the error rate passes {@code failure-rate-threshold}, or when more than
+ * {@code slow-call-rate-threshold} percent of calls are slower than {@code slow-call-duration}
+ * (the default of 1% makes that duration a p99 latency limit). While open, callers get
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException} immediately; after
+ * {@code wait-in-open} a few probe calls decide whether to close again.
+ * <p>
+ * State and short-circuited calls are published as {@code resilience4j.circuitbreaker.*} metrics.
+ */
+@Slf4j
+@Configuration
+public class InferenceCircuitBreakerConfig {
+
+    @Value("${inference.circuit-breaker.sliding-window-size:100}")
+    private int slidingWindowSize;
+
+    @Value("${inference.circuit-breaker.minimum-number-of-calls:20}")
+    private int minimumNumberOfCalls;
+
+    @Value("${inference.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${inference.circuit-breaker.slow-call-duration:1s}")
+    private Duration slowCallDuration;
+
+    @Value("${inference.circuit-breaker.slow-call-rate-threshold:1}")
+    private float slowCallRateThreshold;
+
+    @Value("${inference.circuit-breaker.wait-in-open:10s}")
+    private Duration waitInOpen;
+
+    @Value("${inference.circuit-breaker.half-open-probes:5}")
+    private int halfOpenProbes;
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker inferenceCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .waitDurationInOpenState(waitInOpen)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenProbes)
+                .build();
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("inference", config);
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("Inference circuit breaker {} -> {}",
+                        event.getStateTransition().getFromState(),
+                        event.getStateTransition().getToState()));
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,123 @@
+package com.thurman.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * The one HTTP transport to the inference service, shared by /recommendations/{id}
+ * and /api/recommendations/{userId}: keep-alive connection pool, bounded connect/read
+ * times, and pool gauges under {@code httpcomponents.httpclient.pool.*{httpclient=inference}}.
+ * <p>
+ * The reactive /recommendations/{id}/reactive path gets a Reactor Netty client with the
+ * same limits, reporting under {@code reactor.netty.connection.provider.*{name=inference}}.
+ */
+@Configuration
+public class InferenceHttpClientConfig {
+
+    @Value("${inference.base-url}")
+    private String baseUrl;
+
+    @Value("${inference.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${inference.http.read-timeout:5s}")
+    private Duration readTimeout;
+
+    // How long a request may wait for a free pooled connection before failing
+    @Value("${inference.http.pool-acquire-timeout:1s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${inference.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${inference.http.max-connections-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${inference.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    // Reactive callers queue for a connection instead of holding a thread, so this can be large
+    @Value("${inference.http.max-pending-acquires:10000}")
+    private int maxPendingAcquires;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager inferenceConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "inference")
+                .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient inferenceHttpClient(PoolingHttpClientConnectionManager inferenceConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(inferenceConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestClient inferenceRestClient(RestClient.Builder builder, CloseableHttpClient inferenceHttpClient) {
+        return builder
+                .baseUrl(baseUrl)
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(inferenceHttpClient))
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inferenceConnectionProvider() {
+        return ConnectionProvider.builder("inference")
+                .maxConnections(maxConnectionsPerRoute)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(poolAcquireTimeout)
+                .maxIdleTime(idleEviction)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient inferenceWebClient(WebClient.Builder builder, ConnectionProvider inferenceConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(inferenceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
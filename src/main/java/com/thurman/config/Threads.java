@@ -0,0 +1,19 @@
+package com.thurman.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the service's own executors, so they follow
+ * {@code spring.threads.virtual.enabled} like Tomcat, @Scheduled and the Kafka listeners do.
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon().factory();
+    }
+}
@@ -0,0 +1,120 @@
+package com.thurman.consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk writer for inference_event_log. Rows are streamed with COPY into a session-local
+ * staging table and moved over with one INSERT ... ON CONFLICT (event_id) DO NOTHING, so a
+ * redelivered batch is a no-op. Everything runs in one transaction: when
+ * {@link #write(List)} returns, the whole batch is durable.
+ */
+@Component
+public class InferenceEventLogWriter {
+
+    static final String COLUMNS = "event_id, event_type, event_time, user_id, model_version, latency_ms, recommendations";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public InferenceEventLogWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public record Row(
+            UUID eventId,
+            String eventType,
+            Instant eventTime,
+            String userId,
+            String modelVersion,
+            Integer latencyMs,
+            String recommendationsJson
+    ) {}
+
+    /**
+     * @return the event ids of the rows that were new; a redelivered event is not among them
+     */
+    public Set<UUID> write(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return new HashSet<>();
+        }
+        String csv = toCsv(rows);
+        Set<UUID> inserted = transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Set<UUID>>) con -> {
+            try (Statement stmt = con.createStatement()) {
+                // Lives as long as the pooled connection; emptied at every commit
+                stmt.execute("CREATE TEMP TABLE IF NOT EXISTS inference_event_log_staging "
+                        + "(LIKE inference_event_log INCLUDING DEFAULTS) ON COMMIT DELETE ROWS");
+            }
+            CopyManager copy = con.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copy.copyIn("COPY inference_event_log_staging (" + COLUMNS + ") FROM STDIN (FORMAT csv)",
+                        new StringReader(csv));
+            } catch (IOException e) {
+                throw new SQLException("COPY into inference_event_log_staging failed", e);
+            }
+            try (Statement stmt = con.createStatement();
+                 // DISTINCT ON: the same event twice in one batch would otherwise hit the conflict within one statement
+                 ResultSet rs = stmt.executeQuery("INSERT INTO inference_event_log (" + COLUMNS + ") "
+                         + "SELECT DISTINCT ON (event_id) " + COLUMNS + " FROM inference_event_log_staging "
+                         + "ON CONFLICT (event_id) DO NOTHING RETURNING event_id")) {
+                Set<UUID> ids = new HashSet<>();
+                while (rs.next()) {
+                    ids.add(rs.getObject(1, UUID.class));
+                }
+                return ids;
+            }
+        }));
+        return inserted != null ? inserted : new HashSet<>();
+    }
+
+    static String toCsv(List<Row> rows) {
+        StringBuilder sb = new StringBuilder(rows.size() * 160);
+        for (Row row : rows) {
+            sb.append(row.eventId()).append(',');
+            quote(sb, row.eventType()).append(',');
+            // event_time is a timestamp without time zone, kept in UTC
+            sb.append(row.eventTime().atOffset(ZoneOffset.UTC).toLocalDateTime()).append(',');
+            quote(sb, row.userId()).append(',');
+            quote(sb, row.modelVersion()).append(',');
+            if (row.latencyMs() != null) {
+                sb.append(row.latencyMs());
+            }
+            sb.append(',');
+            quote(sb, row.recommendationsJson()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Unquoted empty is NULL in CSV COPY; anything else is quoted with quotes doubled
+    private static StringBuilder quote(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+}
@@ -1,43 +1,121 @@
 package com.thurman.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.recommendations.PopularItemsTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Persists inference.events.v1 into inference_event_log. Each poll (up to
+ * {@code KAFKA_INFERENCE_BATCH_MAX_RECORDS} records, or whatever arrived within
+ * {@code KAFKA_INFERENCE_BATCH_MAX_WAIT_MS}) is written with one COPY and acked once it is committed.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class InferenceEventsConsumer {
 
     private final ObjectMapper objectMapper;
+    private final PopularItemsTracker popularItemsTracker;
+    private final InferenceEventLogWriter inferenceEventLogWriter;
 
     // Minimal DTO matching your produced JSON
     public record InferenceServedEvent(
             String event_id,
             String event_type,
             String user_id,
+            String model_version,
             Integer latency_ms,
             List<Integer> recommendations
     ) {}
 
     @KafkaListener(
             topics = "${KAFKA_TOPIC_INFERENCE_EVENTS:inference.events.v1}",
-            groupId = "${KAFKA_CONSUMER_GROUP_ID_INFERENCE:inference-consumer-v1}"
+            groupId = "${KAFKA_CONSUMER_GROUP_ID_INFERENCE:inference-consumer-v1}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            properties = {
+                    "max.poll.records=${KAFKA_INFERENCE_BATCH_MAX_RECORDS:5000}",
+                    // Let the broker hold a fetch until a batch worth of data or the wait is up
+                    "fetch.min.bytes=${KAFKA_INFERENCE_BATCH_MIN_BYTES:262144}",
+                    "fetch.max.wait.ms=${KAFKA_INFERENCE_BATCH_MAX_WAIT_MS:200}"
+            }
     )
-    public void onMessage(ConsumerRecord<String, String> record, Acknowledgment ack) throws Exception {
-        InferenceServedEvent evt = objectMapper.readValue(record.value(), InferenceServedEvent.class);
+    public void onMessages(List<ConsumerRecord<String, String>> records, Acknowledgment ack) throws Exception {
+        List<InferenceEventLogWriter.Row> rows = new ArrayList<>(records.size());
+        List<List<Integer>> served = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            InferenceServedEvent evt;
+            try {
+                // A null value is a record the ErrorHandlingDeserializer rejected
+                evt = objectMapper.readValue(Objects.requireNonNull(record.value(), "undeserializable value"),
+                        InferenceServedEvent.class);
+            } catch (Exception e) {
+                // The error handler commits the offsets before this record and dead-letters it,
+                // so the records parsed so far must be stored first
+                store(rows, served);
+                throw new BatchListenerFailedException("Unreadable inference event at offset " + record.offset(), e, i);
+            }
+            if (evt.event_id() == null || evt.user_id() == null) {
+                log.warn("Skipping inference event without event_id/user_id at partition={} offset={}",
+                        record.partition(), record.offset());
+                continue;
+            }
+            List<Integer> recs = evt.recommendations() != null ? evt.recommendations() : List.of();
+            rows.add(new InferenceEventLogWriter.Row(
+                    eventId(evt.event_id()),
+                    evt.event_type() != null ? evt.event_type() : "InferenceServed",
+                    // The event carries no timestamp of its own; the producer's record time is the closest
+                    Instant.ofEpochMilli(record.timestamp()),
+                    evt.user_id(),
+                    evt.model_version(),
+                    evt.latency_ms(),
+                    objectMapper.writeValueAsString(recs)
+            ));
+            served.add(recs);
+        }
 
-        log.info("Inference event received: event_id={} type={} user_id={} latency_ms={} recs={} topic={} partition={} offset={}",
-                evt.event_id(), evt.event_type(), evt.user_id(), evt.latency_ms(), evt.recommendations(),
-                record.topic(), record.partition(), record.offset());
-
-        // For now: just log + ack
+        int inserted = store(rows, served);
+        // Only ack once the batch is durable (at-least-once; redelivery is absorbed by ON CONFLICT)
         ack.acknowledge();
+        log.debug("Stored inference events: {} records, {} new rows", records.size(), inserted);
+    }
+
+    private int store(List<InferenceEventLogWriter.Row> rows, List<List<Integer>> served) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> inserted = inferenceEventLogWriter.write(rows);
+        int count = inserted.size();
+        // Only events stored for the first time count towards popularity, so a redelivered batch
+        // isn't counted twice; remove() also skips a repeat of an event within this batch
+        for (int i = 0; i < rows.size(); i++) {
+            if (inserted.remove(rows.get(i).eventId())) {
+                popularItemsTracker.record(served.get(i));
+            }
+        }
+        return count;
+    }
+
+    // event_id is a UUID in practice; anything else maps to a stable name-based UUID so redeliveries still dedupe
+    private static UUID eventId(String eventId) {
+        try {
+            return UUID.fromString(eventId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(eventId.getBytes(StandardCharsets.UTF_8));
+        }
     }
 }
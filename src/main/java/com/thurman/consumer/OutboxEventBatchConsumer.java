@@ -0,0 +1,72 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Batch variant of {@link OutboxEventConsumer}, enabled with app.kafka.outbox-consumer.mode=batch.
+ * A whole poll is deduplicated with one query, recorded with one batched insert in one
+ * transaction, and acknowledged with a single offset commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kafka.outbox-consumer.mode", havingValue = "batch")
+public class OutboxEventBatchConsumer implements ConsumerSeekAware {
+
+    private final ObjectMapper objectMapper;
+    private final ProcessedEventService processedEventService;
+    private final ProcessedEventFilter processedEventFilter;
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Another instance may have been processing these partitions until now
+        processedEventFilter.requestSeed();
+    }
+
+    @KafkaListener(
+            topics = "${KAFKA_TOPIC_OUTBOX:outbox-events}",
+            groupId = "${KAFKA_CONSUMER_GROUP_ID:product-consumer-v1}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void onMessages(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        List<OutboxEventMessage> msgs = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                // A null value is a record the ErrorHandlingDeserializer rejected
+                msgs.add(objectMapper.readValue(Objects.requireNonNull(record.value(), "undeserializable value"),
+                        OutboxEventMessage.class));
+            } catch (Exception e) {
+                // The error handler commits the offsets before this record and dead-letters it,
+                // so the messages parsed so far must be recorded first
+                if (!msgs.isEmpty()) {
+                    processedEventService.processAll(msgs);
+                }
+                throw new BatchListenerFailedException("Unreadable outbox event at offset " + record.offset(), e, i);
+            }
+        }
+
+        // Nothing is acked unless the whole batch is recorded (at-least-once, as in record mode)
+        int processed = processedEventService.processAll(msgs);
+        ack.acknowledge();
+
+        log.info("Processed outbox batch: {} records, {} new, {} duplicates, partitions={}",
+                records.size(), processed, msgs.size() - processed,
+                records.stream().map(ConsumerRecord::partition).distinct().toList());
+    }
+}
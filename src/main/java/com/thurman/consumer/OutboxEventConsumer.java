@@ -1,21 +1,58 @@
 package com.thurman.consumer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.kafka.KafkaErrorHandlingConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class OutboxEventConsumer {
+@ConditionalOnProperty(name = "app.kafka.outbox-consumer.mode", havingValue = "record", matchIfMissing = true)
+public class OutboxEventConsumer implements ConsumerSeekAware {
 
     private final ObjectMapper objectMapper;
     private final ProcessedEventService processedEventService;
+    private final ProcessedEventFilter processedEventFilter;
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Another instance may have been processing these partitions until now
+        processedEventFilter.requestSeed();
+    }
 
+    // A failing record moves to outbox-events-retry-0, -1, ... (each consumed after its delay) and
+    // finally outbox-events-dlt, so it no longer blocks the records queued behind it.
+    // Malformed JSON can't succeed on retry and goes straight to the DLT.
+    @RetryableTopic(
+            attempts = "${app.kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${app.kafka.retry.delay-ms:1000}",
+                    multiplierExpression = "${app.kafka.retry.multiplier:5}",
+                    maxDelayExpression = "${app.kafka.retry.max-delay-ms:60000}"
+            ),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = KafkaErrorHandlingConfig.DLT_SUFFIX,
+            exclude = {JsonProcessingException.class, DeserializationException.class},
+            kafkaTemplate = "kafkaTemplate"
+    )
     @KafkaListener(
             topics = "${KAFKA_TOPIC_OUTBOX:outbox-events}",
             groupId = "${KAFKA_CONSUMER_GROUP_ID:product-consumer-v1}"
@@ -28,7 +65,7 @@ public class OutboxEventConsumer {
         OutboxEventMessage msg = objectMapper.readValue(value, OutboxEventMessage.class);
 
         // Idempotency: if already processed, ack and return
-        if (processedEventService.isAlreadyProcessed(msg.id())) {
+        if (processedEventService.isAlreadyProcessed(msg)) {
             log.info("Skipping already-processed event id={} topic={} partition={} offset={}",
                     msg.id(), record.topic(), record.partition(), record.offset());
             ack.acknowledge();
@@ -42,10 +79,18 @@ public class OutboxEventConsumer {
             // Only ack AFTER successful processing
             ack.acknowledge();
         } catch (Exception e) {
-            // No ack => message will be re-delivered (at-least-once)
+            // Rethrow => the record is forwarded to the next retry topic (at-least-once)
             log.error("Failed processing event id={} (will retry). topic={} partition={} offset={}",
                     msg.id(), record.topic(), record.partition(), record.offset(), e);
             throw e;
         }
     }
+
+    @DltHandler
+    public void onDeadLetter(ConsumerRecord<String, String> record, Acknowledgment ack,
+                             @Header(KafkaHeaders.EXCEPTION_MESSAGE) String error) {
+        log.error("Outbox event dead-lettered: topic={} partition={} offset={} key={} error={}",
+                record.topic(), record.partition(), record.offset(), record.key(), error);
+        ack.acknowledge();
+    }
 }
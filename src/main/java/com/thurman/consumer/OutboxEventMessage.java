@@ -1,8 +1,14 @@
 package com.thurman.consumer;
 
 import java.time.Instant;
+import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * Envelope of an outbox event. Consumers dedupe on {@code id} and file the processed event under
+ * {@code createdAt}, so a message without either is rejected while parsing: Jackson reports it as a
+ * JsonProcessingException, which every outbox consumer already treats as a poison record.
+ */
 public record OutboxEventMessage(
         UUID id,
         String aggregateType,
@@ -10,4 +16,9 @@ public record OutboxEventMessage(
         String eventType,
         Instant createdAt,
         String payloadJson
-) {}
+) {
+    public OutboxEventMessage {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(createdAt, "createdAt");
+    }
+}
@@ -0,0 +1,131 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.kafka.KeyOrderedParallelProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parallel variant of {@link OutboxEventConsumer}, enabled with app.kafka.outbox-consumer.mode=parallel.
+ * Each poll is fanned out by record key (the aggregateId) over a worker pool, so events for one
+ * product stay in order while different products of the same partition are processed at once.
+ * Offsets are committed here, with commitSync, and only up to the first record that didn't complete.
+ * <p>
+ * Failures never reach the container's error handler, so attempts are counted here: a record that
+ * fails {@code app.kafka.parallel.max-attempts} times, or can't be parsed at all, goes to
+ * {@code <topic>-dlt} through the same recoverer and counts as done, so one poison record can't
+ * hold back its key and partition forever.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.kafka.outbox-consumer.mode", havingValue = "parallel")
+public class OutboxEventParallelConsumer implements ConsumerSeekAware {
+
+    private final ObjectMapper objectMapper;
+    private final ProcessedEventService processedEventService;
+    private final ProcessedEventFilter processedEventFilter;
+    private final KeyOrderedParallelProcessor processor;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    // Failed attempts so far of records that will be redelivered
+    private final Map<RecordPosition, Integer> attempts = new ConcurrentHashMap<>();
+
+    public OutboxEventParallelConsumer(ObjectMapper objectMapper,
+                                       ProcessedEventService processedEventService,
+                                       ProcessedEventFilter processedEventFilter,
+                                       KeyOrderedParallelProcessor outboxParallelProcessor,
+                                       DeadLetterPublishingRecoverer deadLetterRecoverer,
+                                       @Value("${app.kafka.parallel.max-attempts:5}") int maxAttempts,
+                                       @Value("${app.kafka.parallel.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.objectMapper = objectMapper;
+        this.processedEventService = processedEventService;
+        this.processedEventFilter = processedEventFilter;
+        this.processor = outboxParallelProcessor;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Another instance may have been processing these partitions until now
+        processedEventFilter.requestSeed();
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        // Whoever gets these partitions next counts from scratch
+        attempts.keySet().removeIf(position -> partitions.contains(position.partition()));
+    }
+
+    @KafkaListener(
+            topics = "${KAFKA_TOPIC_OUTBOX:outbox-events}",
+            groupId = "${KAFKA_CONSUMER_GROUP_ID:product-consumer-v1}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void onMessages(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) throws InterruptedException {
+        KeyOrderedParallelProcessor.Outcome outcome = processor.process(records, this::handleOrDeadLetter);
+
+        // Runs on the consumer thread, so committing and seeking here is safe
+        if (!outcome.commit().isEmpty()) {
+            consumer.commitSync(outcome.commit());
+        }
+        if (!outcome.rewind().isEmpty()) {
+            outcome.rewind().forEach(consumer::seek);
+            log.warn("Rewound {} partition(s) to their first unprocessed offset: {}", outcome.rewind().size(), outcome.rewind());
+            // Don't spin on a failure that will happen again straight away
+            Thread.sleep(retryBackoffMs);
+        }
+    }
+
+    private void handleOrDeadLetter(ConsumerRecord<String, String> record) throws Exception {
+        RecordPosition position = new RecordPosition(new TopicPartition(record.topic(), record.partition()), record.offset());
+        try {
+            handle(record);
+        } catch (Exception e) {
+            // A malformed payload fails the same way every time
+            int failed = unreadable(record, e) ? maxAttempts : attempts.merge(position, 1, Integer::sum);
+            if (failed < maxAttempts) {
+                throw e;
+            }
+            // Throws if the DLT send fails, so the record is retried rather than lost
+            deadLetterRecoverer.accept(record, null, e);
+        }
+        attempts.remove(position);
+    }
+
+    private void handle(ConsumerRecord<String, String> record) throws Exception {
+        // A null value is a record the ErrorHandlingDeserializer rejected
+        OutboxEventMessage msg = objectMapper.readValue(Objects.requireNonNull(record.value(), "undeserializable value"),
+                OutboxEventMessage.class);
+        if (processedEventService.isAlreadyProcessed(msg)) {
+            return;
+        }
+        processedEventService.process(msg);
+    }
+
+    private static boolean unreadable(ConsumerRecord<String, String> record, Exception e) {
+        return e instanceof JsonProcessingException
+                || record.value() == null
+                || record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null;
+    }
+
+    private record RecordPosition(TopicPartition partition, long offset) {}
+}
@@ -0,0 +1,19 @@
+package com.thurman.consumer;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+public interface ProcessedEventBulkRepository {
+
+    /**
+     * Which of {@code eventIds} already have a processed_events row, in one query.
+     */
+    Set<UUID> findProcessedIds(Collection<UUID> eventIds);
+
+    /**
+     * Inserts a PROCESSED row for each message with one batched statement. A message that
+     * already has a row, e.g. because another consumer got there first, is left as it is.
+     */
+    void insertProcessed(Collection<OutboxEventMessage> msgs);
+}
@@ -0,0 +1,44 @@
+package com.thurman.consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+class ProcessedEventBulkRepositoryImpl implements ProcessedEventBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProcessedEventBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<UUID> findProcessedIds(Collection<UUID> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> found = jdbcTemplate.query(
+                "SELECT event_id FROM processed_events WHERE event_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", eventIds.toArray())),
+                (rs, rowNum) -> rs.getObject(1, UUID.class));
+        return new HashSet<>(found);
+    }
+
+    @Override
+    public void insertProcessed(Collection<OutboxEventMessage> msgs) {
+        // reWriteBatchedInserts on the driver turns this into multi-row INSERTs
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO processed_events (event_id, event_created_at, processed_at, status)
+                VALUES (?, ?, now(), 'PROCESSED')
+                ON CONFLICT (event_id, event_created_at) DO NOTHING
+                """,
+                msgs.stream()
+                        .map(msg -> new Object[]{msg.id(), Timestamp.from(msg.createdAt())})
+                        .toList());
+    }
+}
@@ -16,6 +16,9 @@ public class ProcessedEventEntity {
     @Column(name = "event_id", nullable = false)
     private UUID eventId;
 
+    @Column(name = "event_created_at", nullable = false)
+    private Instant eventCreatedAt;
+
     @Column(name = "processed_at", nullable = false)
     private Instant processedAt = Instant.now();
 
@@ -29,16 +32,18 @@ public class ProcessedEventEntity {
         // for JPA
     }
 
-    public static ProcessedEventEntity processed(UUID eventId) {
+    public static ProcessedEventEntity processed(UUID eventId, Instant eventCreatedAt) {
         ProcessedEventEntity e = new ProcessedEventEntity();
         e.eventId = eventId;
+        e.eventCreatedAt = eventCreatedAt;
         e.status = "PROCESSED";
         return e;
     }
 
-    public static ProcessedEventEntity failed(UUID eventId, String error) {
+    public static ProcessedEventEntity failed(UUID eventId, Instant eventCreatedAt, String error) {
         ProcessedEventEntity e = new ProcessedEventEntity();
         e.eventId = eventId;
+        e.eventCreatedAt = eventCreatedAt;
         e.status = "FAILED";
         e.error = error;
         return e;
@@ -48,6 +53,10 @@ public class ProcessedEventEntity {
         return eventId;
     }
 
+    public Instant getEventCreatedAt() {
+        return eventCreatedAt;
+    }
+
     public Instant getProcessedAt() {
         return processedAt;
     }
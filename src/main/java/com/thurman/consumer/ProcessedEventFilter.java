@@ -0,0 +1,253 @@
+package com.thurman.consumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory pre-filter in front of the processed_events idempotency check.
+ * <ul>
+ *   <li>A recent-ids LRU answers "already processed" for ids this instance committed lately.</li>
+ *   <li>A Bloom filter answers "definitely not processed" for everything it has never seen,
+ *       which is nearly every message, so only possible hits go to the database.</li>
+ * </ul>
+ * The Bloom filter rotates: when the current generation reaches {@code expected-ids} it becomes
+ * the previous one and a fresh one starts, so memory and false positive rate stay bounded and
+ * the newest 1-2 generations of ids are covered. It is seeded from processed_events on startup
+ * and again whenever this instance is assigned partitions, because another instance may have
+ * processed them. Seeds run on a background thread, and the requests of every listener container
+ * in one rebalance share a single seed. From a request until its seed completes every answer is
+ * "ask the database".
+ * <p>
+ * Old ids fall out: a rotation forgets the oldest generation and the seed stops at the
+ * {@code expected-ids} most recently created events. Whatever was forgotten was either created
+ * before the oldest seeded event or processed before the oldest kept generation started, and an
+ * event can't be processed before it is created, so "definitely not processed" is only
+ * answered for events created after the later of the two, less {@code clock-skew}. A late or
+ * replayed older event is always checked against the database.
+ */
+@Slf4j
+@Component
+public class ProcessedEventFilter {
+
+    public enum Answer { PROCESSED, NOT_PROCESSED, MAYBE }
+
+    // Every listener container is assigned its partitions within moments of the others
+    private static final long SEED_DELAY_MS = 1_000;
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final TransactionTemplate seedTransaction;
+    private final boolean enabled;
+    private final long expectedIds;
+    private final double fpp;
+    private final Duration clockSkew;
+    private final Cache<UUID, Boolean> recent;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile Instant currentStartedAt = Instant.now();
+    // Every processed event created after this instant is in the filter
+    private volatile Instant coveredSince = Instant.EPOCH;
+    private volatile boolean seeded;
+    private final ScheduledExecutorService seeder =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("processed-events-seed").daemon().factory());
+    private final AtomicBoolean seedScheduled = new AtomicBoolean();
+    // Bumped by every seed request, so a seed that started before a request doesn't count for it
+    private long seedRequests;
+
+    private final Counter recentHits;
+    private final Counter definitelyNew;
+    private final Counter databaseChecks;
+
+    public ProcessedEventFilter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.processed-events.filter.enabled:true}") boolean enabled,
+            @Value("${app.processed-events.filter.expected-ids:1000000}") long expectedIds,
+            @Value("${app.processed-events.filter.fpp:0.001}") double fpp,
+            @Value("${app.processed-events.filter.recent-ids:100000}") long recentIds,
+            @Value("${app.processed-events.filter.clock-skew:30s}") Duration clockSkew
+    ) {
+        // Own template so the fetch size doesn't leak into the shared one; the driver only streams inside a transaction
+        this.seedJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.seedJdbcTemplate.setFetchSize(10_000);
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedIds = expectedIds;
+        this.fpp = fpp;
+        this.clockSkew = clockSkew;
+        this.recent = Caffeine.newBuilder().maximumSize(recentIds).build();
+        this.current = new BloomFilter(expectedIds, fpp);
+        this.previous = new BloomFilter(1, fpp);
+
+        this.recentHits = counter(meterRegistry, "recent");
+        this.definitelyNew = counter(meterRegistry, "definitely_new");
+        this.databaseChecks = counter(meterRegistry, "database");
+        Gauge.builder("processed_events.filter.ids", this, f -> f.current.size() + f.previous.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param createdAt when the event was created; {@code null} means unknown, which never
+     *                  gets a "not processed" answer
+     */
+    public Answer check(UUID eventId, Instant createdAt) {
+        if (!enabled || !seeded) {
+            databaseChecks.increment();
+            return Answer.MAYBE;
+        }
+        if (recent.getIfPresent(eventId) != null) {
+            recentHits.increment();
+            return Answer.PROCESSED;
+        }
+        if (covers(createdAt) && !current.mightContain(eventId) && !previous.mightContain(eventId)) {
+            definitelyNew.increment();
+            return Answer.NOT_PROCESSED;
+        }
+        databaseChecks.increment();
+        return Answer.MAYBE;
+    }
+
+    /**
+     * Call only once the processed_events rows for these ids are committed.
+     */
+    public void recordProcessed(Collection<UUID> eventIds) {
+        for (UUID id : eventIds) {
+            add(id);
+            recent.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Schedules a seed and sends every check to the database until it completes. Cheap and safe
+     * to call from any thread: requests arriving before the seed starts share it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestSeed() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            seedRequests++;
+            seeded = false;
+        }
+        if (seedScheduled.compareAndSet(false, true)) {
+            seeder.schedule(this::seed, SEED_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the ids of the {@code expected-ids} most recently created processed events. Ids
+     * already present don't count again.
+     */
+    private void seed() {
+        seedScheduled.set(false);
+        long request;
+        synchronized (this) {
+            request = seedRequests;
+        }
+        long start = System.nanoTime();
+        try {
+            long[] rows = {0};
+            Instant[] oldest = {null};
+            // Newest first: if there are more rows than one generation holds, the old ones matter least
+            seedTransaction.executeWithoutResult(status -> seedJdbcTemplate.query(
+                    "SELECT event_id, event_created_at FROM processed_events ORDER BY event_created_at DESC LIMIT ?",
+                    rs -> {
+                        add(rs.getObject(1, UUID.class));
+                        rows[0]++;
+                        oldest[0] = rs.getTimestamp(2).toInstant();
+                    },
+                    expectedIds));
+            // Hitting the limit means older rows were left out
+            seeded(rows[0] < expectedIds ? Instant.EPOCH : oldest[0], request);
+            log.info("Processed-event filter seeded with {} ids in {}ms",
+                    current.size() + previous.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Could not seed processed-event filter, every check goes to the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the seed done, with every processed event created after {@code complete} now added.
+     */
+    void seeded(Instant complete) {
+        long request;
+        synchronized (this) {
+            request = seedRequests;
+        }
+        seeded(complete, request);
+    }
+
+    private synchronized void seeded(Instant complete, long request) {
+        raiseCoveredSince(complete);
+        // A request made while this seed ran has its own seed queued; wait for that one
+        if (request == seedRequests) {
+            seeded = true;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        seeder.shutdownNow();
+    }
+
+    private boolean covers(Instant createdAt) {
+        return createdAt != null && createdAt.isAfter(coveredSince.plus(clockSkew));
+    }
+
+    private void add(UUID id) {
+        BloomFilter filter = current;
+        if (filter.isFull()) {
+            filter = rotate(filter);
+        }
+        filter.put(id);
+    }
+
+    private synchronized BloomFilter rotate(BloomFilter full) {
+        if (current == full) {
+            // The generation dropped here only held ids added before the full one started
+            if (previous.size() > 0) {
+                raiseCoveredSince(currentStartedAt);
+            }
+            previous = full;
+            currentStartedAt = Instant.now();
+            current = new BloomFilter(expectedIds, fpp);
+        }
+        return current;
+    }
+
+    private synchronized void raiseCoveredSince(Instant instant) {
+        if (instant.isAfter(coveredSince)) {
+            coveredSince = instant;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("processed_events.filter.checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -4,7 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.UUID;
 
-public interface ProcessedEventRepository extends JpaRepository<ProcessedEventEntity, UUID> {
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEventEntity, UUID>, ProcessedEventBulkRepository {
     // JpaRepository already gives you:
     // existsById(UUID id)
     // save(entity)
@@ -1,17 +1,30 @@
 package com.thurman.consumer;
 
+import com.thurman.config.TransactionCallbacks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 @Service
 @RequiredArgsConstructor
 public class ProcessedEventService {
 
     private final ProcessedEventRepository repo;
+    private final ProcessedEventFilter filter;
 
-    public boolean isAlreadyProcessed(java.util.UUID eventId) {
-        return repo.existsById(eventId);
+    public boolean isAlreadyProcessed(OutboxEventMessage msg) {
+        return switch (filter.check(msg.id(), msg.createdAt())) {
+            case PROCESSED -> true;
+            case NOT_PROCESSED -> false;
+            case MAYBE -> repo.existsById(msg.id());
+        };
     }
 
     @Transactional
@@ -21,6 +34,39 @@ public class ProcessedEventService {
         // - call inference service
         // - update a projection, etc.
 
-        repo.save(ProcessedEventEntity.processed(msg.id()));
+        repo.insertProcessed(List.of(msg));
+        // Only committed ids may be reported as processed
+        TransactionCallbacks.afterCommit(() -> filter.recordProcessed(List.of(msg.id())));
+    }
+
+    /**
+     * Batch counterpart of {@link #isAlreadyProcessed} + {@link #process}: one dedup query and
+     * one batched insert for the whole list, in one transaction.
+     *
+     * @return how many messages were new (duplicates within the list count once)
+     */
+    @Transactional
+    public int processAll(List<OutboxEventMessage> msgs) {
+        Map<UUID, OutboxEventMessage> fresh = new LinkedHashMap<>();
+        Set<UUID> toCheck = new LinkedHashSet<>();
+        for (OutboxEventMessage msg : msgs) {
+            ProcessedEventFilter.Answer answer = filter.check(msg.id(), msg.createdAt());
+            if (answer != ProcessedEventFilter.Answer.PROCESSED) {
+                fresh.putIfAbsent(msg.id(), msg);
+            }
+            if (answer == ProcessedEventFilter.Answer.MAYBE) {
+                toCheck.add(msg.id());
+            }
+        }
+        // Only possible hits go to the database
+        fresh.keySet().removeAll(repo.findProcessedIds(toCheck));
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+
+        Set<UUID> ids = new LinkedHashSet<>(fresh.keySet());
+        repo.insertProcessed(List.copyOf(fresh.values()));
+        TransactionCallbacks.afterCommit(() -> filter.recordProcessed(ids));
+        return ids.size();
     }
 }
@@ -0,0 +1,80 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.product.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Keeps this instance's product caches in line with writes made on other replicas.
+ * <p>
+ * Every instance reads the outbox topics in a consumer group of its own (a random suffix per
+ * start, from the latest offset), so each one sees every PRODUCT_* event. Offsets are never
+ * committed: the next start is a new group that begins at the latest offset anyway, and a
+ * group without committed offsets disappears once its member leaves instead of lingering. For each event the
+ * product is evicted from {@code products_by_id} and re-read into the catalog by primary key;
+ * the event carries no full snapshot, and the row is the source of truth anyway. Events for
+ * writes made here are applied a second time, which costs one PK lookup.
+ * <p>
+ * {@code products.cache.sync.lag} times from the outbox event's creation to the eviction.
+ * A failure is logged and skipped: the next event for the product or the periodic catalog
+ * reload repairs it, and cache events never go to the outbox DLT.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "products.cache.sync.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductCacheSyncConsumer {
+
+    private static final String PRODUCT_EVENT_PREFIX = "PRODUCT_";
+
+    private final ObjectMapper objectMapper;
+    private final ProductService productService;
+    private final Timer lag;
+    private final Counter failures;
+
+    public ProductCacheSyncConsumer(ObjectMapper objectMapper, ProductService productService, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.productService = productService;
+        this.lag = Timer.builder("products.cache.sync.lag")
+                .description("Time from an outbox event's creation to the local cache update")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failures = Counter.builder("products.cache.sync.failures")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = "product-cache-sync",
+            topics = "#{@outboxTopicRouter.topics()}",
+            groupId = "${products.cache.sync.group-prefix:product-cache}-${random.uuid}",
+            properties = {"auto.offset.reset=latest", "enable.auto.commit=false"}
+    )
+    public void onMessage(ConsumerRecord<String, String> record) {
+        try {
+            if (record.value() != null) {
+                apply(objectMapper.readValue(record.value(), OutboxEventMessage.class));
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Could not apply product cache sync for topic={} partition={} offset={}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+        }
+    }
+
+    private void apply(OutboxEventMessage msg) {
+        if (msg.eventType() == null || !msg.eventType().startsWith(PRODUCT_EVENT_PREFIX)) {
+            return;
+        }
+        productService.refreshCachedProduct(msg.aggregateId());
+        lag.record(Duration.between(msg.createdAt(), Instant.now()));
+    }
+}
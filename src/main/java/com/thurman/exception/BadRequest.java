@@ -0,0 +1,7 @@
+package com.thurman.exception;
+
+public class BadRequest extends RuntimeException {
+    public BadRequest(String message) {
+        super(message);
+    }
+}
@@ -35,6 +35,44 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(BadRequest.class)
+    public ResponseEntity<ErrorResponse> handleBadRequest(
+            BadRequest ex,
+            HttpServletRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                request.getRequestURI(),
+                Instant.now(),
+                null
+        );
+        return new ResponseEntity<>(
+                errorResponse,
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(ServiceUnavailable.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(
+            ServiceUnavailable ex,
+            HttpServletRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                request.getRequestURI(),
+                Instant.now(),
+                null
+        );
+        return new ResponseEntity<>(
+                errorResponse,
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(
             MethodArgumentNotValidException ex,
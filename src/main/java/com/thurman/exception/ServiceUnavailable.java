@@ -0,0 +1,7 @@
+package com.thurman.exception;
+
+public class ServiceUnavailable extends RuntimeException {
+    public ServiceUnavailable(String message) {
+        super(message);
+    }
+}
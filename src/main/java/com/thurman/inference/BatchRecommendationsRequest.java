@@ -0,0 +1,16 @@
+package com.thurman.inference;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchRecommendationsRequest(
+        @JsonProperty("user_ids")
+        @NotEmpty(message = "user_ids must not be empty")
+        @Size(max = 500, message = "At most 500 user_ids per request")
+        List<@NotNull Integer> userIds
+) {
+}
@@ -0,0 +1,9 @@
+package com.thurman.inference;
+
+import java.util.Map;
+
+public record BatchRecommendationsResponse(
+        Map<Integer, Object> results,
+        Map<Integer, String> errors
+) {
+}
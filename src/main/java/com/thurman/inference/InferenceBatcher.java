@@ -0,0 +1,171 @@
+package com.thurman.inference;
+
+import com.thurman.config.Threads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Micro-batching front for {@link InferenceClient}.
+ * <p>
+ * Calls to {@link #submit(int)} are collected for up to {@code inference.batch.max-wait}
+ * or until {@code inference.batch.max-size} users are waiting, then sent as one
+ * {@link InferenceClient#predictBatch(List)} request and fanned back out to the callers.
+ * With {@code inference.batch.enabled=false} every submit is a plain single-user predict, run on
+ * at most {@code inference.http.max-connections-per-route} threads: more could only wait for a
+ * pooled connection, so further calls queue here instead of each holding a thread.
+ */
+@Slf4j
+@Component
+public class InferenceBatcher {
+
+    private final InferenceClient inferenceClient;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Pending> pending = new ArrayList<>();
+    // Bumped on every drain so a timer armed for an older window can't flush a newer one early
+    private long window;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+    private final ExecutorService singleCalls;
+
+    private final DistributionSummary batchSizes;
+    private final Counter batchFailures;
+
+    public InferenceBatcher(
+            InferenceClient inferenceClient,
+            MeterRegistry meterRegistry,
+            @Value("${inference.batch.enabled:false}") boolean enabled,
+            @Value("${inference.batch.max-size:32}") int maxBatchSize,
+            @Value("${inference.batch.max-wait:5ms}") Duration maxWait,
+            @Value("${inference.batch.max-concurrent:4}") int maxConcurrentBatches,
+            @Value("${inference.http.max-connections-per-route:100}") int maxSingleCalls,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.inferenceClient = inferenceClient;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("inference-batch-timer").daemon().factory());
+        this.dispatcher = Executors.newFixedThreadPool(maxConcurrentBatches,
+                Threads.factory("inference-batch-", virtualThreads));
+        this.singleCalls = Executors.newFixedThreadPool(maxSingleCalls,
+                Threads.factory("inference-call-", virtualThreads));
+
+        this.batchSizes = DistributionSummary.builder("inference.batch.size")
+                .description("Users per batched inference request")
+                .register(meterRegistry);
+        this.batchFailures = Counter.builder("inference.batch.failures")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Object> submit(int userId) {
+        if (!enabled) {
+            return CompletableFuture.supplyAsync(() -> inferenceClient.predict(userId), singleCalls);
+        }
+
+        Pending request = new Pending(userId, new CompletableFuture<>());
+        List<Pending> full = null;
+        lock.lock();
+        try {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                long armedFor = window;
+                timer.schedule(() -> flush(armedFor), maxWaitNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return request.result();
+    }
+
+    private void flush(long armedFor) {
+        List<Pending> batch = null;
+        lock.lock();
+        try {
+            if (window == armedFor && !pending.isEmpty()) {
+                batch = drain();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private List<Pending> drain() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        window++;
+        return batch;
+    }
+
+    private void dispatch(List<Pending> batch) {
+        dispatcher.execute(() -> send(batch));
+    }
+
+    private void send(List<Pending> batch) {
+        // The same user may be queued twice inside one window; ask for them once
+        Map<Integer, List<Pending>> byUser = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            byUser.computeIfAbsent(p.userId(), id -> new ArrayList<>()).add(p);
+        }
+        batchSizes.record(byUser.size());
+
+        try {
+            Map<Integer, Object> results = inferenceClient.predictBatch(new ArrayList<>(byUser.keySet()));
+            byUser.forEach((userId, waiters) -> {
+                Object result = results.get(userId);
+                for (Pending p : waiters) {
+                    if (result != null) {
+                        p.result().complete(result);
+                    } else {
+                        p.result().completeExceptionally(new RuntimeException(
+                                "Inference batch response has no result for user_id " + userId));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            batchFailures.increment();
+            log.warn("Inference batch of {} users failed: {}", byUser.size(), e.getMessage());
+            batch.forEach(p -> p.result().completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdown();
+        singleCalls.shutdown();
+    }
+
+    private record Pending(int userId, CompletableFuture<Object> result) {}
+}
@@ -1,10 +1,12 @@
 package com.thurman.inference;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -12,13 +14,8 @@ public class InferenceClient {
 
     private final RestClient restClient;
 
-    public InferenceClient(
-            RestClient.Builder builder,
-            @Value("${inference.base-url}") String baseUrl
-    ) {
-        this.restClient = builder
-                .baseUrl(baseUrl)
-                .build();
+    public InferenceClient(RestClient inferenceRestClient) {
+        this.restClient = inferenceRestClient;
     }
 
     public Object predict(int userId) {
@@ -37,6 +34,57 @@ public class InferenceClient {
                 .body(Object.class);
     }
 
+    /**
+     * Raw response for the /recommendations/{id} flow. Errors surface as
+     * {@link org.springframework.web.client.RestClientException}s so the caller can fall back.
+     */
+    public Map<String, Object> recommendations(long id) {
+        // Option B payload (keeps inference schema happy)
+        Map<String, Object> payload = Map.of(
+                "user_id", id,
+                "product_id", id
+        );
+        return restClient.post()
+                .uri("/recommendations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload)
+                .retrieve()
+                .body(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    /**
+     * One round-trip for many users. Expects the inference service to answer
+     * {@code POST /recommendations/batch {"user_ids": [...]}} with
+     * {@code {"results": [{"user_id": 1, ...}, ...]}}; users missing from the
+     * response are simply absent from the returned map.
+     */
+    public Map<Integer, Object> predictBatch(List<Integer> userIds) {
+        Map<String, Object> body = restClient.post()
+                .uri("/recommendations/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("user_ids", userIds))
+                .retrieve()
+                .onStatus(
+                        status -> status.is4xxClientError() || status.is5xxServerError(),
+                        (request, response) ->
+                                new RuntimeException(
+                                        "Inference batch call failed with status " + response.getStatusCode()
+                                )
+                )
+                .body(new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        Map<Integer, Object> byUser = new HashMap<>();
+        Object results = body != null ? body.get("results") : null;
+        if (results instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof Map<?, ?> result && result.get("user_id") instanceof Number userId) {
+                    byUser.put(userId.intValue(), result);
+                }
+            }
+        }
+        return byUser;
+    }
+
     public Object health() {
         return restClient.get()
                 .uri("/health")
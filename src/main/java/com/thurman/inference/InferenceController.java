@@ -1,27 +1,75 @@
 package com.thurman.inference;
 
 
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/api")
 public class InferenceController {
 
     private final InferenceClient inferenceClient;
+    private final RecommendationCache recommendationCache;
+    private final Duration batchTimeout;
 
-    public InferenceController(InferenceClient inferenceClient) {
+    public InferenceController(InferenceClient inferenceClient,
+                               RecommendationCache recommendationCache,
+                               @Value("${inference.batch-endpoint.timeout:10s}") Duration batchTimeout) {
         this.inferenceClient = inferenceClient;
+        this.recommendationCache = recommendationCache;
+        this.batchTimeout = batchTimeout;
     }
 
     @GetMapping("/recommendations/{userId}")
     public Object recommendations(@PathVariable int userId) {
-        return inferenceClient.predict(userId);
+        return recommendationCache.get(userId);
+    }
+
+    // Cached users are answered directly; misses from all ids are batched together.
+    // Users still loading when the request's deadline passes are reported as errors.
+    @PostMapping("/recommendations/batch")
+    public BatchRecommendationsResponse batchRecommendations(
+            @RequestBody @Valid BatchRecommendationsRequest request) {
+        Map<Integer, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (Integer userId : request.userIds()) {
+            // Time out a copy: the cached load itself keeps going for other callers
+            futures.computeIfAbsent(userId, id -> recommendationCache.getAsync(id).copy()
+                    .orTimeout(batchTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        Map<Integer, Object> results = new LinkedHashMap<>();
+        Map<Integer, String> errors = new LinkedHashMap<>();
+        futures.forEach((userId, future) -> {
+            try {
+                results.put(userId, future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errors.put(userId, cause instanceof TimeoutException
+                        ? "timed out after " + batchTimeout.toMillis() + "ms"
+                        : cause.getMessage());
+            }
+        });
+        return new BatchRecommendationsResponse(results, errors);
     }
 
     @GetMapping("/inference/health")
     public Object inferenceHealth() {
         return inferenceClient.health();
     }
+
+    @GetMapping("/inference/cache/stats")
+    public RecommendationCache.Stats cacheStats() {
+        return recommendationCache.stats();
+    }
 }
 
 
@@ -0,0 +1,38 @@
+package com.thurman.inference;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link InferenceClient#recommendations(long)}: no thread
+ * waits on the inference round-trip, so a handful of event-loop threads can carry
+ * thousands of in-flight calls.
+ */
+@Service
+public class ReactiveInferenceClient {
+
+    private final WebClient webClient;
+
+    public ReactiveInferenceClient(WebClient inferenceWebClient) {
+        this.webClient = inferenceWebClient;
+    }
+
+    public Mono<Map<String, Object>> recommendations(long id) {
+        // Option B payload (keeps inference schema happy)
+        Map<String, Object> payload = Map.of(
+                "user_id", id,
+                "product_id", id
+        );
+        return webClient.post()
+                .uri("/recommendations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+}
@@ -0,0 +1,100 @@
+package com.thurman.inference;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user cache in front of {@link InferenceClient#predict(int)}. Misses are loaded
+ * through {@link InferenceBatcher}, so they are micro-batched when that is enabled.
+ * <p>
+ * Entries expire after {@code inference.cache.ttl} and are refreshed in the background
+ * once older than {@code inference.cache.refresh-after}, so a hot user keeps getting the
+ * cached answer while the next one is computed. Concurrent misses for the same user
+ * share a single in-flight future: N callers, one inference call.
+ */
+@Component
+public class RecommendationCache {
+
+    private final AsyncLoadingCache<Integer, Object> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public RecommendationCache(
+            InferenceBatcher inferenceBatcher,
+            MeterRegistry meterRegistry,
+            @Value("${inference.cache.max-size:10000}") long maxSize,
+            @Value("${inference.cache.ttl:5m}") Duration ttl,
+            @Value("${inference.cache.refresh-after:1m}") Duration refreshAfter
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .buildAsync((userId, executor) -> inferenceBatcher.submit(userId));
+
+        FunctionCounter.builder("inference.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("inference.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("inference.cache.requests", coalesced, LongAdder::sum)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("inference.cache.size", cache, c -> c.synchronous().estimatedSize())
+                .register(meterRegistry);
+    }
+
+    public Object get(int userId) {
+        try {
+            return getAsync(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Object> getAsync(int userId) {
+        // asMap() lookups don't touch Caffeine's own stats, so this peek is free.
+        // Two callers racing on an empty slot may both count as a miss; Caffeine still loads once.
+        CompletableFuture<Object> existing = cache.asMap().get(userId);
+        if (existing != null && existing.isCompletedExceptionally()) {
+            // Caffeine drops a failed load from its own completion callback, which can run after a
+            // caller has already reacted to the failure and asked again; don't hand that failure out twice
+            cache.asMap().remove(userId, existing);
+            existing = null;
+        }
+        if (existing == null) {
+            misses.increment();
+        } else if (existing.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        return cache.get(userId);
+    }
+
+    public void invalidate(int userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), cache.synchronous().estimatedSize());
+    }
+
+    public record Stats(long hits, long misses, long coalesced, long size) {}
+}
@@ -0,0 +1,31 @@
+package com.thurman.kafka;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+
+/**
+ * Listener container factory for batch listeners. Same settings as Boot's default factory
+ * (ack mode, concurrency...) but hands each poll to the listener as one list, and uses the
+ * batch error handler from {@link KafkaErrorHandlingConfig}.
+ */
+@Configuration
+public class KafkaBatchListenerConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Qualifier("batchKafkaErrorHandler") DefaultErrorHandler batchKafkaErrorHandler
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(batchKafkaErrorHandler);
+        return factory;
+    }
+}
@@ -0,0 +1,100 @@
+package com.thurman.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Error handling for the listener containers: a few quick in-place retries, then the record goes
+ * to {@code <topic>-dlt} and the partition moves on. Malformed payloads, whether rejected by the
+ * ErrorHandlingDeserializer or by Jackson in a listener, can never succeed and skip the retries.
+ * <p>
+ * Boot wires {@link #kafkaErrorHandler} into the default factory. The batch factory gets
+ * {@link #batchKafkaErrorHandler}: there, only a record the listener points at with a
+ * BatchListenerFailedException is dead-lettered. Any other failure says nothing about the
+ * records, typically the database being down, so the whole poll is retried with backoff until
+ * it goes through; dead-lettering it would drop up to a full poll of good records.
+ * <p>
+ * The record-mode outbox listener additionally uses non-blocking retry topics
+ * (see {@code OutboxEventConsumer}); those take over before this handler is involved.
+ * The parallel outbox listener handles failures itself and uses the same recoverer
+ * (see {@code OutboxEventParallelConsumer}).
+ */
+@Slf4j
+@Configuration
+public class KafkaErrorHandlingConfig {
+
+    public static final String DLT_SUFFIX = "-dlt";
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<String, String> kafkaTemplate,
+                                                                       KafkaProperties kafkaProperties) {
+        // Records that failed deserialization are republished as their original bytes
+        KafkaTemplate<String, byte[]> bytesTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null), new StringSerializer(), new ByteArraySerializer()));
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, bytesTemplate);
+        templates.put(String.class, kafkaTemplate);
+
+        return new DeadLetterPublishingRecoverer(templates, (record, e) -> {
+            log.error("Sending record topic={} partition={} offset={} to {}{}: {}",
+                    record.topic(), record.partition(), record.offset(), record.topic(), DLT_SUFFIX, e.getMessage());
+            // Let the producer pick the partition: the DLT needn't mirror the source's partition count
+            return new TopicPartition(record.topic() + DLT_SUFFIX, -1);
+        });
+    }
+
+    @Bean
+    @Primary
+    public DefaultErrorHandler kafkaErrorHandler(
+            DeadLetterPublishingRecoverer recoverer,
+            @Value("${app.kafka.error-handler.attempts:3}") int attempts,
+            @Value("${app.kafka.error-handler.initial-backoff-ms:200}") long initialBackoffMs
+    ) {
+        DefaultErrorHandler handler = new DefaultErrorHandler(recoverer, recordBackOff(attempts, initialBackoffMs));
+        handler.addNotRetryableExceptions(JsonProcessingException.class, DeserializationException.class);
+        return handler;
+    }
+
+    @Bean
+    public DefaultErrorHandler batchKafkaErrorHandler(
+            DeadLetterPublishingRecoverer recoverer,
+            @Value("${app.kafka.error-handler.attempts:3}") int attempts,
+            @Value("${app.kafka.error-handler.initial-backoff-ms:200}") long initialBackoffMs,
+            @Value("${app.kafka.error-handler.batch-max-backoff-ms:30000}") long batchMaxBackoffMs
+    ) {
+        // No attempt limit: the poll is retried until the failure clears or the container stops
+        ExponentialBackOff batchBackOff = new ExponentialBackOff(initialBackoffMs, 2.0);
+        batchBackOff.setMaxInterval(batchMaxBackoffMs);
+        DefaultErrorHandler handler = new DefaultErrorHandler(recoverer, batchBackOff);
+        // A record named by a BatchListenerFailedException is retried like in record mode, then dead-lettered
+        BackOff recordBackOff = recordBackOff(attempts, initialBackoffMs);
+        handler.setBackOffFunction((record, e) -> recordBackOff);
+        handler.addNotRetryableExceptions(JsonProcessingException.class, DeserializationException.class);
+        return handler;
+    }
+
+    private static BackOff recordBackOff(int attempts, long initialBackoffMs) {
+        ExponentialBackOff backOff = new ExponentialBackOff(initialBackoffMs, 2.0);
+        backOff.setMaxAttempts(attempts - 1);
+        return backOff;
+    }
+}
@@ -0,0 +1,20 @@
+package com.thurman.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.kafka.outbox-consumer.mode", havingValue = "parallel")
+public class KafkaParallelConsumerConfig {
+
+    @Bean
+    public KeyOrderedParallelProcessor outboxParallelProcessor(
+            @Value("${app.kafka.parallel.workers:16}") int workers,
+            @Value("${app.kafka.parallel.max-in-flight-per-partition:8}") int maxInFlightPerPartition,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        return new KeyOrderedParallelProcessor("outbox-consumer", workers, maxInFlightPerPartition, virtualThreads);
+    }
+}
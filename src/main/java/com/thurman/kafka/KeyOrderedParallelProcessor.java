@@ -0,0 +1,124 @@
+package com.thurman.kafka;
+
+import com.thurman.config.Threads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Processes one poll's records on a worker pool instead of one at a time on the consumer thread.
+ * <p>
+ * Records are grouped by (partition, key); each group runs in offset order on one worker, so
+ * per-key ordering holds while different keys of the same partition run side by side, at most
+ * {@code maxInFlightPerPartition} at once. A failure stops the rest of that key's records.
+ * When all groups are done, each partition's committable offset is the first record that didn't
+ * complete (or the end of the batch), so only a contiguous completed prefix is ever committed;
+ * partitions with a gap are rewound to it and redelivered.
+ */
+@Slf4j
+public class KeyOrderedParallelProcessor {
+
+    @FunctionalInterface
+    public interface RecordHandler<K, V> {
+        void handle(ConsumerRecord<K, V> record) throws Exception;
+    }
+
+    /**
+     * @param commit offsets to commit, per partition
+     * @param rewind partitions to seek back, to the first record that did not complete
+     */
+    public record Outcome(Map<TopicPartition, OffsetAndMetadata> commit, Map<TopicPartition, Long> rewind) {}
+
+    private final ExecutorService workers;
+    private final int maxInFlightPerPartition;
+
+    public KeyOrderedParallelProcessor(String name, int workerThreads, int maxInFlightPerPartition, boolean virtualThreads) {
+        this.workers = Executors.newFixedThreadPool(workerThreads, Threads.factory(name + "-", virtualThreads));
+        this.maxInFlightPerPartition = maxInFlightPerPartition;
+    }
+
+    public <K, V> Outcome process(List<ConsumerRecord<K, V>> records, RecordHandler<K, V> handler) {
+        Map<TopicPartition, Map<Object, List<ConsumerRecord<K, V>>>> groups = new LinkedHashMap<>();
+        for (ConsumerRecord<K, V> record : records) {
+            TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+            // No key, no ordering to keep: every such record is its own group
+            Object key = record.key() != null ? record.key() : record.offset();
+            groups.computeIfAbsent(tp, p -> new LinkedHashMap<>())
+                    .computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(record);
+        }
+
+        Set<ConsumerRecord<K, V>> completed = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        groups.forEach((tp, byKey) -> {
+            Semaphore inFlight = new Semaphore(maxInFlightPerPartition);
+            byKey.values().forEach(group -> running.add(CompletableFuture.runAsync(
+                    () -> runInOrder(group, handler, inFlight, completed), workers)));
+        });
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+
+        Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>();
+        Map<TopicPartition, Long> rewind = new HashMap<>();
+        Map<TopicPartition, List<ConsumerRecord<K, V>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<K, V> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), p -> new ArrayList<>())
+                    .add(record);
+        }
+        byPartition.forEach((tp, partitionRecords) -> {
+            long next = partitionRecords.get(0).offset();
+            for (ConsumerRecord<K, V> record : partitionRecords) {
+                if (!completed.contains(record)) {
+                    rewind.put(tp, record.offset());
+                    break;
+                }
+                next = record.offset() + 1;
+            }
+            if (next > partitionRecords.get(0).offset()) {
+                commit.put(tp, new OffsetAndMetadata(next));
+            }
+        });
+        return new Outcome(commit, rewind);
+    }
+
+    private <K, V> void runInOrder(List<ConsumerRecord<K, V>> group, RecordHandler<K, V> handler,
+                                   Semaphore inFlight, Set<ConsumerRecord<K, V>> completed) {
+        for (ConsumerRecord<K, V> record : group) {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                handler.handle(record);
+                completed.add(record);
+            } catch (Exception e) {
+                // Later records of this key must wait for this one; they come back after the rewind
+                log.error("Failed processing record topic={} partition={} offset={} key={} (will retry)",
+                        record.topic(), record.partition(), record.offset(), record.key(), e);
+                return;
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
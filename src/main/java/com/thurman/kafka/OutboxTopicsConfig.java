@@ -0,0 +1,34 @@
+package com.thurman.kafka;
+
+import com.thurman.outbox.OutboxTopicRouter;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+/**
+ * With outbox compaction on, declare every outbox topic as log-compacted so the broker also
+ * keeps only the latest event per aggregate. KafkaAdmin creates missing topics on startup;
+ * existing topics keep their config and need {@code cleanup.policy=compact} set by hand.
+ */
+@Configuration
+@ConditionalOnProperty(name = "OUTBOX_COMPACTION_ENABLED", havingValue = "true")
+public class OutboxTopicsConfig {
+
+    @Bean
+    public KafkaAdmin.NewTopics outboxTopics(
+            OutboxTopicRouter topicRouter,
+            @Value("${KAFKA_TOPIC_OUTBOX_PARTITIONS:6}") int partitions
+    ) {
+        // Replication factor is left to the broker default
+        return new KafkaAdmin.NewTopics(topicRouter.topics().stream()
+                .map(topic -> TopicBuilder.name(topic)
+                        .partitions(partitions)
+                        .compact()
+                        .build())
+                .toArray(NewTopic[]::new));
+    }
+}
@@ -15,7 +15,11 @@ public class OutboxEvent {
         NEW,
         PROCESSING,
         SENT,
-        FAILED
+        FAILED,
+        // Superseded by a later event for the same aggregate in the same batch; never published
+        COMPACTED,
+        // Out of retry attempts; needs a human
+        PARKED
     }
 
     @Id
@@ -48,6 +52,9 @@ public class OutboxEvent {
     @Column(name = "sent_at")
     private Instant sentAt;
 
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
     protected OutboxEvent() {}
 
     public OutboxEvent(UUID id, String eventType, String aggregateId, String payload) {
@@ -59,6 +66,14 @@ public class OutboxEvent {
         this.createdAt = Instant.now();
     }
 
+    // Claimed row as read by OutboxEventClaimRepository, never attached to a persistence context
+    OutboxEvent(UUID id, String eventType, String aggregateId, String payload, int attemptCount, Instant createdAt) {
+        this(id, eventType, aggregateId, payload);
+        this.status = Status.PROCESSING;
+        this.attemptCount = attemptCount;
+        this.createdAt = createdAt;
+    }
+
     public UUID getId() { return id; }
     public String getEventType() { return eventType; }
     public String getAggregateId() { return aggregateId; }
@@ -68,6 +83,7 @@ public class OutboxEvent {
     public String getLastError() { return lastError; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getSentAt() { return sentAt; }
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
 
     public void markProcessing() {
         this.status = Status.PROCESSING;
@@ -0,0 +1,48 @@
+package com.thurman.outbox;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface OutboxEventClaimRepository {
+
+    /**
+     * Atomically moves up to {@code limit} of the oldest claimable rows (NEW, or PROCESSING
+     * with an expired lease) to PROCESSING, owned by {@code owner} until now + {@code lease}.
+     * Rows locked by a concurrent claimer are skipped, never waited on, so any number of
+     * publishers can call this in parallel without handing out the same row twice.
+     * <p>
+     * Aggregates are claimed whole: a row is only claimable once every older row of its
+     * aggregate is finished or claimed in the same batch, so no two batches ever hold rows of
+     * the same aggregate at once. A FAILED row is not finished, so it holds back the rest of
+     * its aggregate until it is retried successfully, superseded or PARKED.
+     *
+     * @return the claimed rows in created_at order, detached from any persistence context
+     */
+    List<OutboxEvent> claimBatch(String owner, int limit, Duration lease);
+
+    /**
+     * Like {@link #claimBatch}, for FAILED rows whose next attempt is due, most overdue first.
+     * Only the oldest unfinished row of each aggregate is claimed.
+     */
+    List<OutboxEvent> claimRetries(String owner, int limit, Duration lease);
+
+    /**
+     * For each of {@code ids}, the event types of SENT rows of the same aggregate created after it.
+     * Ids with none are left out.
+     */
+    Map<UUID, Set<String>> findNewerSentEventTypes(Collection<UUID> ids);
+
+    /**
+     * Records the outcome of a published batch with one set-based UPDATE per outcome,
+     * in a single short transaction. Rows whose lease has since passed to another owner
+     * are left alone. Failed rows are scheduled for another attempt with exponential backoff
+     * and jitter, or PARKED once they have used up their attempts.
+     *
+     * @param failed error message per failed row
+     */
+    void recordResults(String owner, List<UUID> sent, List<UUID> compacted, Map<UUID, String> failed);
+}
@@ -0,0 +1,204 @@
+package com.thurman.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+class OutboxEventClaimRepositoryImpl implements OutboxEventClaimRepository {
+
+    // A claim takes whole aggregates: only the oldest unfinished row of an aggregate (its head)
+    // can be locked, and the aggregate's later claimable rows ride along with it. A concurrent
+    // claimer skips the locked head and, seeing an older unfinished row, none of the rest, so
+    // one aggregate is only ever in flight in one batch across all workers and replicas.
+    // A FAILED row counts as unfinished: newer events of its aggregate wait until it is sent,
+    // superseded or PARKED, rather than overtaking it.
+    // Lease times are computed with the database clock on both sides, so replicas never compare clocks
+    private static final String CLAIM_SQL_TEMPLATE = """
+            WITH heads AS (
+                SELECT o.id, o.aggregate_id, o.created_at
+                FROM outbox_events o
+                WHERE (%1$s)
+                  AND NOT EXISTS (
+                      SELECT 1
+                      FROM outbox_events older
+                      WHERE older.aggregate_id = o.aggregate_id
+                        AND older.status IN ('NEW', 'PROCESSING', 'FAILED')
+                        AND (older.created_at, older.id) < (o.created_at, o.id)
+                  )
+                ORDER BY %2$s
+                LIMIT ?
+                FOR UPDATE OF o SKIP LOCKED
+            ),
+            claimable AS (
+                SELECT id
+                FROM (
+                    SELECT id, created_at FROM heads
+                    UNION
+                    SELECT f.id, f.created_at
+                    FROM outbox_events f
+                    JOIN heads h ON h.aggregate_id = f.aggregate_id
+                    WHERE %3$s
+                ) candidates
+                -- Cutting by age never keeps a later row of an aggregate without its head
+                ORDER BY created_at, id
+                LIMIT ?
+            ),
+            claimed AS (
+                UPDATE outbox_events o
+                SET status = 'PROCESSING',
+                    locked_by = ?,
+                    locked_until = now() + make_interval(secs => ?)
+                FROM claimable
+                WHERE o.id = claimable.id
+                RETURNING o.id, o.event_type, o.aggregate_id, o.payload::text AS payload, o.attempt_count, o.created_at
+            )
+            SELECT * FROM claimed ORDER BY created_at, id
+            """;
+
+    private static final String CLAIMABLE_NEW = "%1$s.status = 'NEW' OR (%1$s.status = 'PROCESSING' AND %1$s.locked_until < now())";
+
+    private static final String CLAIM_SQL = CLAIM_SQL_TEMPLATE.formatted(
+            CLAIMABLE_NEW.formatted("o"),
+            "o.created_at",
+            CLAIMABLE_NEW.formatted("f"));
+
+    // Retries go one row per aggregate: each FAILED row has its own schedule
+    private static final String CLAIM_RETRIES_SQL = CLAIM_SQL_TEMPLATE.formatted(
+            "o.status = 'FAILED' AND o.next_attempt_at <= now()",
+            "o.next_attempt_at",
+            "false");
+
+    private static final String NEWER_SENT_SQL = """
+            SELECT DISTINCT f.id, n.event_type
+            FROM outbox_events f
+            JOIN outbox_events n
+              ON n.aggregate_id = f.aggregate_id
+             AND n.status = 'SENT'
+             AND (n.created_at, n.id) > (f.created_at, f.id)
+            WHERE f.id = ANY(?)
+            """;
+
+    private static final String MARK_DONE_SQL = """
+            UPDATE outbox_events
+            SET status = ?,
+                sent_at = now(),
+                last_error = NULL,
+                next_attempt_at = NULL,
+                locked_by = NULL,
+                locked_until = NULL
+            WHERE id = ANY(?) AND locked_by = ?
+            """;
+
+    // Delay before attempt n+1 is min(max, base * 2^n), scaled by a random 50-100% so a batch
+    // that failed together doesn't retry together
+    private static final String MARK_FAILED_SQL = """
+            UPDATE outbox_events o
+            SET status = CASE WHEN o.attempt_count + 1 >= ? THEN 'PARKED' ELSE 'FAILED' END,
+                attempt_count = o.attempt_count + 1,
+                last_error = f.error,
+                next_attempt_at = CASE
+                    WHEN o.attempt_count + 1 >= ? THEN NULL
+                    ELSE now() + make_interval(secs => least(?, ? * power(2, o.attempt_count)) * (0.5 + random() / 2))
+                END,
+                locked_by = NULL,
+                locked_until = NULL
+            FROM unnest(?::uuid[], ?::text[]) AS f(id, error)
+            WHERE o.id = f.id AND o.locked_by = ?
+            """;
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getObject("id", UUID.class),
+            rs.getString("event_type"),
+            rs.getString("aggregate_id"),
+            rs.getString("payload"),
+            rs.getInt("attempt_count"),
+            rs.getTimestamp("created_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+
+    OutboxEventClaimRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                   @Value("${OUTBOX_MAX_ATTEMPTS:10}") int maxAttempts,
+                                   @Value("${OUTBOX_RETRY_BASE_DELAY_MS:1000}") long retryBaseDelayMs,
+                                   @Value("${OUTBOX_RETRY_MAX_DELAY_MS:300000}") long retryMaxDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelay = Duration.ofMillis(retryBaseDelayMs);
+        this.retryMaxDelay = Duration.ofMillis(retryMaxDelayMs);
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimBatch(String owner, int limit, Duration lease) {
+        return jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, limit, limit, owner, (double) lease.toSeconds());
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimRetries(String owner, int limit, Duration lease) {
+        return jdbcTemplate.query(CLAIM_RETRIES_SQL, ROW_MAPPER, limit, limit, owner, (double) lease.toSeconds());
+    }
+
+    @Override
+    public Map<UUID, Set<String>> findNewerSentEventTypes(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Set<String>> newer = new HashMap<>();
+        jdbcTemplate.query(NEWER_SENT_SQL,
+                ps -> ps.setArray(1, array(ps.getConnection(), "uuid", ids)),
+                rs -> {
+                    newer.computeIfAbsent(rs.getObject(1, UUID.class), id -> new HashSet<>()).add(rs.getString(2));
+                });
+        return newer;
+    }
+
+    @Override
+    @Transactional
+    public void recordResults(String owner, List<UUID> sent, List<UUID> compacted, Map<UUID, String> failed) {
+        markDone(OutboxEvent.Status.SENT, sent, owner);
+        markDone(OutboxEvent.Status.COMPACTED, compacted, owner);
+        if (!failed.isEmpty()) {
+            jdbcTemplate.update(MARK_FAILED_SQL, ps -> {
+                ps.setInt(1, maxAttempts);
+                ps.setInt(2, maxAttempts);
+                ps.setDouble(3, retryMaxDelay.toMillis() / 1000.0);
+                ps.setDouble(4, retryBaseDelay.toMillis() / 1000.0);
+                ps.setArray(5, array(ps.getConnection(), "uuid", failed.keySet()));
+                ps.setArray(6, array(ps.getConnection(), "text", failed.values()));
+                ps.setString(7, owner);
+            });
+        }
+    }
+
+    private void markDone(OutboxEvent.Status status, List<UUID> ids, String owner) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(MARK_DONE_SQL, ps -> {
+            ps.setString(1, status.name());
+            ps.setArray(2, array(ps.getConnection(), "uuid", ids));
+            ps.setString(3, owner);
+        });
+    }
+
+    private static Array array(Connection connection, String type, Collection<?> values) throws SQLException {
+        return connection.createArrayOf(type, values.toArray());
+    }
+}
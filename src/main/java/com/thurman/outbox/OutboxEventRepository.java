@@ -1,12 +1,9 @@
 package com.thurman.outbox;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
 import java.util.UUID;
 
-public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
-    List<OutboxEvent> findByStatusOrderByCreatedAtAsc(OutboxEvent.Status status, Pageable pageable);
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID>, OutboxEventClaimRepository {
 }
 
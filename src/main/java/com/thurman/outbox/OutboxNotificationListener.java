@@ -0,0 +1,114 @@
+package com.thurman.outbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Read side of the outbox wakeup: LISTENs on {@link OutboxNotifier#CHANNEL} and drains the
+ * outbox as soon as a writer commits. Notifications that arrive while a drain is running
+ * queue up on the connection and are handled by a single follow-up drain.
+ * <p>
+ * If nothing is heard for {@code OUTBOX_SAFETY_POLL_MS} the outbox is drained anyway, which
+ * covers rows written by anything that doesn't NOTIFY and rows whose claim lease expired.
+ * The LISTEN connection is opened outside the Hikari pool so it doesn't pin a pooled connection.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "OUTBOX_WAKEUP_MODE", havingValue = "notify")
+public class OutboxNotificationListener {
+
+    private final OutboxPublisher outboxPublisher;
+    private final JdbcConnectionDetails connectionDetails;
+    private final int safetyPollMs;
+    private final long reconnectDelayMs;
+
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public OutboxNotificationListener(OutboxPublisher outboxPublisher,
+                                      JdbcConnectionDetails connectionDetails,
+                                      @Value("${OUTBOX_SAFETY_POLL_MS:30000}") int safetyPollMs,
+                                      @Value("${OUTBOX_LISTEN_RECONNECT_MS:5000}") long reconnectDelayMs) {
+        this.outboxPublisher = outboxPublisher;
+        this.connectionDetails = connectionDetails;
+        this.safetyPollMs = safetyPollMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        thread = Thread.ofPlatform().name("outbox-listener").daemon().start(this::run);
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    connectionDetails.getJdbcUrl(),
+                    connectionDetails.getUsername(),
+                    connectionDetails.getPassword())) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("LISTEN " + OutboxNotifier.CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                log.info("Listening for outbox notifications, safety poll every {}ms", safetyPollMs);
+
+                // Anything committed while we weren't listening
+                drain();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(safetyPollMs);
+                    if (!running) {
+                        break;
+                    }
+                    // Woken up or timed out: either way there may be work
+                    drain();
+                    if (notifications == null || notifications.length == 0) {
+                        log.debug("No outbox notifications for {}ms, drained as a safety net", safetyPollMs);
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Outbox LISTEN connection failed, reconnecting in {}ms: {}", reconnectDelayMs, e.getMessage());
+                    sleep(reconnectDelayMs);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            outboxPublisher.publishNewEvents();
+        } catch (Exception e) {
+            log.warn("Outbox drain failed: {}", e.getMessage());
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.thurman.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write side of the outbox wakeup. In {@code OUTBOX_WAKEUP_MODE=notify} every transaction
+ * that writes an outbox row also queues a NOTIFY, which Postgres delivers to
+ * {@link OutboxNotificationListener} only once the transaction commits (and never on rollback).
+ */
+@Component
+public class OutboxNotifier {
+
+    static final String CHANNEL = "outbox_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public OutboxNotifier(JdbcTemplate jdbcTemplate,
+                          @Value("${OUTBOX_WAKEUP_MODE:poll}") String wakeupMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = "notify".equalsIgnoreCase(wakeupMode);
+    }
+
+    /**
+     * Must run inside the transaction that wrote the outbox row. Identical notifications
+     * within one transaction are folded into one by Postgres.
+     */
+    public void newEventsCommitted() {
+        if (enabled) {
+            jdbcTemplate.query("SELECT pg_notify(?, '')", rs -> {}, CHANNEL);
+        }
+    }
+}
@@ -1,70 +1,265 @@
 package com.thurman.outbox;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.config.Threads;
+import com.thurman.consumer.OutboxEventMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Component
 public class OutboxPublisher {
 
     private final OutboxEventRepository outboxEventRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
-
-    @Value("${KAFKA_TOPIC_INFERENCE_EVENTS:inference.events.v1}")
-    private String topic;
+    private final OutboxTopicRouter topicRouter;
+    private final ObjectMapper objectMapper;
+    private final String instanceId;
+    private final int workers;
+    private final ExecutorService workerPool;
 
     // How many events to process per tick
     @Value("${OUTBOX_BATCH_SIZE:20}")
     private int batchSize;
 
+    // Upper bound on waiting for the broker to ack a whole batch
+    @Value("${OUTBOX_SEND_TIMEOUT_MS:30000}")
+    private long sendTimeoutMs;
+
+    // A claimed row is handed to another publisher if not finished within this lease
+    @Value("${OUTBOX_CLAIM_LEASE_MS:60000}")
+    private long claimLeaseMs;
+
+    // poll: drain every OUTBOX_PUBLISH_DELAY_MS; notify: OutboxNotificationListener drains on commit
+    @Value("${OUTBOX_WAKEUP_MODE:poll}")
+    private String wakeupMode;
+
+    // Retry stage: at most this many due FAILED events are re-published per tick, so recovery
+    // after an outage drains at a steady rate next to NEW traffic instead of as one storm
+    @Value("${OUTBOX_RETRY_BATCH_SIZE:50}")
+    private int retryBatchSize;
+
+    // Publish only the latest event per (topic, aggregate) in each batch; pair with compacted topics
+    @Value("${OUTBOX_COMPACTION_ENABLED:false}")
+    private boolean compactionEnabled;
+
     public OutboxPublisher(OutboxEventRepository outboxEventRepository,
-                           KafkaTemplate<String, String> kafkaTemplate) {
+                           KafkaTemplate<String, String> kafkaTemplate,
+                           OutboxTopicRouter topicRouter,
+                           ObjectMapper objectMapper,
+                           @Value("${OUTBOX_INSTANCE_ID:${HOSTNAME:}}") String instanceId,
+                           @Value("${OUTBOX_WORKERS:1}") int workers,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.outboxEventRepository = outboxEventRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.topicRouter = topicRouter;
+        this.objectMapper = objectMapper;
+        this.instanceId = instanceId.isBlank() ? "publisher-" + UUID.randomUUID() : instanceId;
+        this.workers = workers;
+        this.workerPool = workers > 1
+                ? Executors.newFixedThreadPool(workers, Threads.factory("outbox-worker-", virtualThreads))
+                : null;
     }
 
     /**
-     * Poll NEW events and publish them.
+     * Claim NEW events and publish them, with OUTBOX_WORKERS claimers draining in parallel.
+     * Claims use FOR UPDATE SKIP LOCKED, so any number of replicas and workers can run this
+     * at once without publishing the same row twice; rows are held by a lease rather than
+     * an open transaction while the Kafka sends are in flight. Each claim takes whole
+     * aggregates, so concurrent batches never race two events of one aggregate to the broker.
      * Note: this is an "at-least-once" publisher. If Kafka send succeeds but DB commit fails,
      * you could resend on next run. That’s acceptable for phase 2; consumers should be idempotent.
      */
-    @Scheduled(fixedDelayString = "${OUTBOX_PUBLISH_DELAY_MS:2000}")
-    @Transactional
     public void publishNewEvents() {
-        List<OutboxEvent> batch = outboxEventRepository.findByStatusOrderByCreatedAtAsc(
-                OutboxEvent.Status.NEW,
-                PageRequest.of(0, batchSize)
-        );
+        if (workerPool == null) {
+            drain();
+            return;
+        }
+        List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            running.add(CompletableFuture.runAsync(this::drain, workerPool));
+        }
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+    }
 
-        if (batch.isEmpty()) {
+    @Scheduled(fixedDelayString = "${OUTBOX_PUBLISH_DELAY_MS:2000}")
+    public void poll() {
+        if ("notify".equalsIgnoreCase(wakeupMode)) {
             return;
         }
+        publishNewEvents();
+    }
+
+    /**
+     * Re-publish FAILED events whose backoff has passed. Runs on its own schedule and claims
+     * only FAILED rows, so it never competes with NEW events for a batch. A failed event that
+     * a newer event of its aggregate has already overtaken on the same topic (it failed while
+     * the rest of its batch went out) is marked COMPACTED instead: re-sending it would put an
+     * older snapshot after the newer one.
+     */
+    @Scheduled(fixedDelayString = "${OUTBOX_RETRY_DELAY_MS:5000}")
+    public void retryFailedEvents() {
+        List<OutboxEvent> due = outboxEventRepository.claimRetries(instanceId, retryBatchSize, Duration.ofMillis(claimLeaseMs));
+        if (!due.isEmpty()) {
+            List<UUID> superseded = new ArrayList<>();
+            int done = publish(withoutSuperseded(due, superseded), superseded);
+            log.info("Retried {} failed outbox events, {} succeeded or superseded", due.size(), done);
+        }
+    }
 
-        for (OutboxEvent evt : batch) {
-            try {
-                // Use outbox id as key for ordering/idempotency
-                String key = evt.getId().toString();
+    private void drain() {
+        // Keep going while batches come back full and clean: there is a backlog and the broker is healthy
+        int sent;
+        do {
+            sent = publishBatch();
+        } while (sent == batchSize);
+    }
 
-                // payload is already JSON (string)
-                kafkaTemplate.send(topic, key, evt.getPayload()).get();
+    /**
+     * Claims, publishes and records one batch.
+     *
+     * @return how many events of the batch were acked by the broker or compacted away
+     */
+    int publishBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.claimBatch(instanceId, batchSize, Duration.ofMillis(claimLeaseMs));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        return publish(batch, new ArrayList<>());
+    }
 
-                evt.markSent();
+    /**
+     * @param compacted ids already known to be superseded; compaction adds to it
+     */
+    private int publish(List<OutboxEvent> batch, List<UUID> compacted) {
+        List<OutboxEvent> toSend = compactionEnabled ? compact(batch, compacted) : batch;
+
+        // Fire every send first so the producer can pack them into as few requests as possible...
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(toSend.size());
+        for (OutboxEvent evt : toSend) {
+            // Key by aggregate so every event for one product lands on one partition, in order
+            try {
+                sends.add(kafkaTemplate.send(topicRouter.topicFor(evt.getEventType()), evt.getAggregateId(), toMessage(evt)));
+            } catch (Exception e) {
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        kafkaTemplate.flush();
+
+        // ...then await them together and collect each result
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<UUID> sent = new ArrayList<>(toSend.size());
+        Map<UUID, String> failed = new LinkedHashMap<>();
+        for (int i = 0; i < toSend.size(); i++) {
+            UUID id = toSend.get(i).getId();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                sends.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                sent.add(id);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.put(id, safeMessage(e));
+            } catch (ExecutionException e) {
+                failed.put(id, safeMessage(e.getCause() != null ? e.getCause() : e));
             } catch (Exception e) {
-                evt.markFailed(safeMessage(e));
+                failed.put(id, safeMessage(e));
             }
         }
 
-        // Because we're in @Transactional and entities are managed,
-        // changes to evt will be flushed at commit.
-        // (Calling saveAll is optional; leaving it out keeps it simple.)
+        // One UPDATE per outcome in a short transaction of its own, after all network I/O is done
+        outboxEventRepository.recordResults(instanceId, sent, compacted, failed);
+        return sent.size() + compacted.size();
+    }
+
+    /**
+     * Keeps the latest event per (topic, aggregateId) and collects the ids of the rest.
+     * Every PRODUCT_* payload is a full snapshot, so the newest one supersedes everything
+     * before it, which is what a compacted topic keeps for the key anyway. Safe with any number
+     * of drainers: no other batch can hold an event of the same aggregate (see
+     * {@link OutboxEventClaimRepository#claimBatch}), so the survivor is also the last to be sent.
+     *
+     * @param batch     events in created_at order
+     * @param compacted receives the ids of superseded events
+     * @return the surviving events, still in created_at order
+     */
+    private List<OutboxEvent> compact(List<OutboxEvent> batch, List<UUID> compacted) {
+        Map<String, OutboxEvent> latest = new LinkedHashMap<>();
+        for (OutboxEvent evt : batch) {
+            String key = topicRouter.topicFor(evt.getEventType()) + '|' + evt.getAggregateId();
+            OutboxEvent superseded = latest.remove(key);
+            if (superseded != null) {
+                compacted.add(superseded.getId());
+            }
+            latest.put(key, evt);
+        }
+        if (!compacted.isEmpty()) {
+            log.debug("Compacted outbox batch of {} events down to {}", batch.size(), latest.size());
+        }
+        return new ArrayList<>(latest.values());
     }
 
-    private String safeMessage(Exception e) {
+    /**
+     * Moves the ids of events already overtaken by a newer SENT event of the same aggregate
+     * and topic into {@code superseded}.
+     *
+     * @return the events still worth re-sending, in their original order
+     */
+    private List<OutboxEvent> withoutSuperseded(List<OutboxEvent> due, List<UUID> superseded) {
+        Map<UUID, Set<String>> newerSent = outboxEventRepository.findNewerSentEventTypes(
+                due.stream().map(OutboxEvent::getId).toList());
+        List<OutboxEvent> retry = new ArrayList<>(due.size());
+        for (OutboxEvent evt : due) {
+            String topic = topicRouter.topicFor(evt.getEventType());
+            boolean overtaken = newerSent.getOrDefault(evt.getId(), Set.of()).stream()
+                    .anyMatch(type -> topic.equals(topicRouter.topicFor(type)));
+            if (overtaken) {
+                superseded.add(evt.getId());
+            } else {
+                retry.add(evt);
+            }
+        }
+        return retry;
+    }
+
+    private String toMessage(OutboxEvent evt) throws JsonProcessingException {
+        // Consumers dedupe on the outbox id carried in the envelope
+        OutboxEventMessage msg = new OutboxEventMessage(
+                evt.getId(),
+                aggregateType(evt.getEventType()),
+                UUID.fromString(evt.getAggregateId()),
+                evt.getEventType(),
+                evt.getCreatedAt(),
+                evt.getPayload()
+        );
+        return objectMapper.writeValueAsString(msg);
+    }
+
+    // PRODUCT_CREATED -> PRODUCT
+    private static String aggregateType(String eventType) {
+        int sep = eventType.indexOf('_');
+        return sep > 0 ? eventType.substring(0, sep) : eventType;
+    }
+
+    private String safeMessage(Throwable e) {
         String msg = e.getMessage();
         if (msg == null || msg.isBlank()) {
             msg = e.getClass().getSimpleName();
@@ -72,4 +267,11 @@ public class OutboxPublisher {
         // Keep last_error reasonably sized
         return msg.length() > 800 ? msg.substring(0, 800) : msg;
     }
+
+    @PreDestroy
+    void shutdown() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package com.thurman.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routing table from outbox eventType to Kafka topic.
+ * <p>
+ * {@code OUTBOX_TOPIC_ROUTES} is a comma separated list of {@code EVENT_TYPE=topic} entries.
+ * An entry ending in {@code *} matches by prefix ({@code PRODUCT_*=product-events}); exact
+ * entries win over prefixes, and longer prefixes win over shorter ones. Event types with no
+ * matching entry go to {@code OUTBOX_DEFAULT_TOPIC}.
+ */
+@Component
+public class OutboxTopicRouter {
+
+    private final Map<String, String> exact = new LinkedHashMap<>();
+    private final Map<String, String> prefixes = new LinkedHashMap<>();
+    private final String defaultTopic;
+
+    public OutboxTopicRouter(
+            @Value("${OUTBOX_TOPIC_ROUTES:PRODUCT_*=${KAFKA_TOPIC_OUTBOX:outbox-events}}") List<String> routes,
+            @Value("${OUTBOX_DEFAULT_TOPIC:${KAFKA_TOPIC_OUTBOX:outbox-events}}") String defaultTopic
+    ) {
+        for (String route : routes) {
+            int eq = route.indexOf('=');
+            if (eq <= 0 || eq == route.length() - 1) {
+                throw new IllegalArgumentException("Invalid OUTBOX_TOPIC_ROUTES entry '" + route + "', expected EVENT_TYPE=topic");
+            }
+            String eventType = route.substring(0, eq).trim();
+            String topic = route.substring(eq + 1).trim();
+            if (eventType.endsWith("*")) {
+                prefixes.put(eventType.substring(0, eventType.length() - 1), topic);
+            } else {
+                exact.put(eventType, topic);
+            }
+        }
+        this.defaultTopic = defaultTopic;
+    }
+
+    public String topicFor(String eventType) {
+        String topic = exact.get(eventType);
+        if (topic != null) {
+            return topic;
+        }
+        String bestPrefix = null;
+        for (String prefix : prefixes.keySet()) {
+            if (eventType.startsWith(prefix) && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                bestPrefix = prefix;
+            }
+        }
+        return bestPrefix != null ? prefixes.get(bestPrefix) : defaultTopic;
+    }
+
+    /**
+     * Every topic an outbox event can be routed to.
+     */
+    public Set<String> topics() {
+        Set<String> topics = new LinkedHashSet<>(exact.values());
+        topics.addAll(prefixes.values());
+        topics.add(defaultTopic);
+        return topics;
+    }
+}
@@ -0,0 +1,187 @@
+package com.thurman.product;
+
+import com.thurman.config.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory copy of the full product list behind GET /api/v1/products.
+ * <p>
+ * Loaded from the database on first read, then kept current by the write paths: each committed
+ * write inserts, replaces or removes one entry, so a single-product change never throws the
+ * whole list away. The list lives in an immutable {@link Snapshot} swapped through an
+ * {@link AtomicReference}; readers never lock and always see a complete list. Writers and the
+ * full load share one lock, so a write that commits while a load is reading the table is
+ * applied after the load's result, never overwritten by it.
+ * <p>
+ * Versions can still arrive out of order: the commit callbacks of two concurrent updates run in
+ * either order, and {@link #refresh(UUID)} reads the row before taking the lock. An entry is
+ * therefore only replaced by a version whose {@code updatedAt} is not older than its own.
+ * <p>
+ * Writes made by other replicas arrive through {@link #refresh(UUID)}. A full reload every
+ * {@code products.catalog.reload-ms} bounds drift from anything else (manual SQL, missed events).
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Counter fullLoads;
+
+    public ProductCatalog(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.fullLoads = Counter.builder("products.catalog.loads")
+                .description("Full reads of the product table into the catalog")
+                .register(meterRegistry);
+        Gauge.builder("products.catalog.size", snapshot, s -> s.get() == null ? 0 : s.get().list().size())
+                .register(meterRegistry);
+    }
+
+    public List<ProductResponse> all() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            current = loadIfAbsent();
+        }
+        return current.list();
+    }
+
+    /** Inserts or replaces {@code product} once the current transaction commits. */
+    public void upsertAfterCommit(Product product) {
+        // Mapped at commit time, so values set at flush (updatedAt) are included.
+        // A rolled-back write must not show up in the catalog.
+        TransactionCallbacks.afterCommit(() -> upsert(ProductResponse.from(product)));
+    }
+
+    /** Removes the product once the current transaction commits. */
+    public void removeAfterCommit(UUID id) {
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Re-reads one product and inserts, replaces or removes it, for writes committed by
+     * another replica. A no-op until the catalog has been loaded.
+     */
+    public void refresh(UUID id) {
+        if (snapshot.get() == null) {
+            return;
+        }
+        Optional<ProductResponse> current = productRepository.findById(id).map(ProductResponse::from);
+        // Read outside the lock: if a newer version got in since, with() keeps it
+        apply(s -> current.map(s::with).orElseGet(() -> s.without(id)));
+    }
+
+    void upsert(ProductResponse product) {
+        apply(s -> s.with(product));
+    }
+
+    void remove(UUID id) {
+        apply(s -> s.without(id));
+    }
+
+    @Scheduled(fixedDelayString = "${products.catalog.reload-ms:300000}",
+            initialDelayString = "${products.catalog.reload-ms:300000}")
+    public void reload() {
+        // Only refresh a catalog someone has asked for
+        if (snapshot.get() != null) {
+            load();
+        }
+    }
+
+    private Snapshot loadIfAbsent() {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot.get();
+            return current != null ? current : load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Snapshot load() {
+        writeLock.lock();
+        try {
+            log.info("DB HIT: loading product catalog");
+            Snapshot loaded = Snapshot.of(productRepository.findAll().stream()
+                    .map(ProductResponse::from)
+                    .toList());
+            snapshot.set(loaded);
+            fullLoads.increment();
+            return loaded;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(UnaryOperator<Snapshot> change) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot.get();
+            // Not loaded yet: the first read will see this write in the table
+            if (current != null) {
+                snapshot.set(change.apply(current));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * One immutable version of the catalog. Each change copies the entries once (a memory copy,
+     * far cheaper than re-reading the table) and keeps the existing order; new products go last.
+     */
+    record Snapshot(Map<UUID, ProductResponse> byId, List<ProductResponse> list) {
+
+        static Snapshot of(Collection<ProductResponse> products) {
+            Map<UUID, ProductResponse> byId = new LinkedHashMap<>();
+            products.forEach(p -> byId.put(p.id(), p));
+            return new Snapshot(byId);
+        }
+
+        private Snapshot(Map<UUID, ProductResponse> byId) {
+            this(Map.copyOf(byId), List.copyOf(byId.values()));
+        }
+
+        /** Inserts or replaces {@code product}, unless the entry held is newer. */
+        Snapshot with(ProductResponse product) {
+            ProductResponse held = byId.get(product.id());
+            if (held != null && isOlder(product, held)) {
+                return this;
+            }
+            Map<UUID, ProductResponse> next = new LinkedHashMap<>();
+            list.forEach(p -> next.put(p.id(), p));
+            next.put(product.id(), product);
+            return new Snapshot(next);
+        }
+
+        Snapshot without(UUID id) {
+            if (!byId.containsKey(id)) {
+                return this;
+            }
+            Map<UUID, ProductResponse> next = new LinkedHashMap<>();
+            list.forEach(p -> next.put(p.id(), p));
+            next.remove(id);
+            return new Snapshot(next);
+        }
+
+        private static boolean isOlder(ProductResponse incoming, ProductResponse held) {
+            return incoming.updatedAt() != null && held.updatedAt() != null
+                    && incoming.updatedAt().isBefore(held.updatedAt());
+        }
+    }
+}
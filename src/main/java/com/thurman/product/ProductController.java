@@ -1,22 +1,32 @@
 package com.thurman.product;
 
+import com.thurman.exception.BadRequest;
+import com.thurman.exception.ServiceUnavailable;
 import com.thurman.storage.S3StorageService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -35,12 +45,30 @@ public class ProductController {
     private static final CacheControl NO_STORE =
             CacheControl.noStore();
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ProductService productService;
     private final ProductImageService productImageService;
-
-    public ProductController(ProductService productService, ProductImageService productImageService) {
+    private final ProductExportService productExportService;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+    private final Semaphore exportPermits;
+    private final Duration exportTimeout;
+
+    public ProductController(ProductService productService,
+                             ProductImageService productImageService,
+                             ProductExportService productExportService,
+                             @Value("${products.page.default-limit:50}") int defaultPageLimit,
+                             @Value("${products.page.max-limit:200}") int maxPageLimit,
+                             @Value("${products.export.max-concurrent:2}") int maxConcurrentExports,
+                             @Value("${products.export.timeout:30m}") Duration exportTimeout) {
         this.productService = productService;
         this.productImageService = productImageService;
+        this.productExportService = productExportService;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+        this.exportPermits = new Semaphore(maxConcurrentExports);
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
@@ -50,6 +78,78 @@ public class ProductController {
                 .body(productService.getAllProducts());
     }
 
+    // Keyset pagination: pass the previous page's nextCursor as cursor, with the same sort and filters.
+    // limit is capped at products.page.max-limit.
+    @GetMapping("page")
+    public ResponseEntity<ProductPage> getProductPage(@RequestParam(value = "sort", defaultValue = "created_at") String sort,
+                                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                      @RequestParam(value = "published", required = false) Boolean published,
+                                                      @RequestParam(value = "inStock", required = false) Boolean inStock,
+                                                      @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                                      @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice) {
+        int pageSize = limit != null ? limit : defaultPageLimit;
+        if (pageSize < 1) {
+            throw new BadRequest("limit must be at least 1");
+        }
+        ProductSort order = ProductSort.fromParam(sort);
+        ProductPageQuery query = new ProductPageQuery(
+                order,
+                Math.min(pageSize, maxPageLimit),
+                cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, order) : null,
+                published,
+                inStock,
+                minPrice,
+                maxPrice
+        );
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_JSON)
+                .body(productService.getProductPage(query));
+    }
+
+    // Whole catalog as NDJSON, streamed from a database cursor; gzipped when the client accepts it.
+    // An export holds a pooled connection and a snapshot for as long as the client keeps reading, so
+    // at most products.export.max-concurrent run at once (503 beyond that), each for at most
+    // products.export.timeout rather than the app-wide async request timeout
+    @GetMapping(value = "export", produces = NDJSON)
+    public WebAsyncTask<Void> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+        if (!exportPermits.tryAcquire()) {
+            throw new ServiceUnavailable("Too many product exports running, retry later");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                exportPermits.release();
+            }
+        };
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE.getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        WebAsyncTask<Void> export = new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            try {
+                if (gzip) {
+                    try (GZIPOutputStream gzipOut = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                        productExportService.writeNdjson(gzipOut);
+                    }
+                } else {
+                    productExportService.writeNdjson(response.getOutputStream());
+                }
+            } finally {
+                release.run();
+            }
+            return null;
+        });
+        // Also frees the permit when the request times out or fails before the export ran
+        export.onCompletion(release);
+        return export;
+    }
+
     @GetMapping("{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable("id") UUID id) {
         return ResponseEntity.ok()
@@ -0,0 +1,44 @@
+package com.thurman.product;
+
+import com.thurman.exception.BadRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position after the last product of a page: its sort value and id. Travels as an opaque
+ * base64url token so clients don't build or depend on its format.
+ */
+public record ProductCursor(ProductSort sort, String value, UUID id) {
+
+    public static ProductCursor after(ProductSort sort, ProductResponse last) {
+        return new ProductCursor(sort, sort.valueOf(last), last.id());
+    }
+
+    public String encode() {
+        String raw = sort.name() + '|' + value + '|' + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws BadRequest if the token is malformed or was issued for a different sort
+     */
+    public static ProductCursor decode(String token, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            ProductCursor cursor = new ProductCursor(ProductSort.valueOf(parts[0]), parts[1], UUID.fromString(parts[2]));
+            // Fail on an unparseable value here rather than in the query
+            cursor.sort().parse(cursor.value());
+            if (cursor.sort() != expectedSort) {
+                throw new BadRequest("cursor was issued for sort " + cursor.sort().name().toLowerCase());
+            }
+            return cursor;
+        } catch (BadRequest e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BadRequest("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.thurman.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full catalog export as NDJSON (one ProductResponse JSON object per line), for batch
+ * consumers such as the recommender's feature pipelines.
+ * <p>
+ * Rows come from a server-side cursor ({@code products.export.fetch-size} rows per round trip;
+ * the Postgres driver only streams inside a transaction, hence the read-only one) and each row
+ * is written out as soon as it is read, so memory stays flat however large the catalog is.
+ * The export is one consistent snapshot of the table.
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    private static final String EXPORT_SQL = """
+            SELECT id, name, description, price, image_url, stock_level, is_published,
+                   created_at, updated_at, deleted_at
+            FROM product
+            ORDER BY created_at, id
+            """;
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate exportTransaction;
+    private final ObjectWriter writer;
+
+    public ProductExportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${products.export.fetch-size:1000}") int fetchSize) {
+        // Own template so the fetch size doesn't leak into the shared one
+        this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+        this.exportTransaction.setIsolationLevel(TransactionTemplate.ISOLATION_REPEATABLE_READ);
+        this.writer = objectMapper.writerFor(ProductResponse.class);
+    }
+
+    /**
+     * Writes every product to {@code out} as NDJSON. Does not close {@code out}.
+     *
+     * @return the number of products written
+     * @throws UncheckedIOException if writing fails, e.g. because the client went away;
+     *                              the cursor and its connection are released either way
+     */
+    public long writeNdjson(OutputStream out) {
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        exportTransaction.executeWithoutResult(status -> exportJdbcTemplate.query(EXPORT_SQL, rs -> {
+            ProductResponse product = ProductPageRepositoryImpl.ROW_MAPPER.mapRow(rs, 0);
+            try {
+                // Not writeValue(stream): that would flush and close the stream after every row
+                buffered.write(writer.writeValueAsBytes(product));
+                buffered.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows.incrementAndGet();
+        }));
+        try {
+            buffered.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} products in {}ms", rows.get(), (System.nanoTime() - start) / 1_000_000);
+        return rows.get();
+    }
+}
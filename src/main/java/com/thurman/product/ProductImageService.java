@@ -2,6 +2,7 @@ package com.thurman.product;
 
 import com.thurman.exception.ResourceNotFound;
 import com.thurman.storage.S3StorageService;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,12 +16,15 @@ public class ProductImageService {
 
     private final ProductRepository productRepository;
     private final S3StorageService s3;
+    private final ProductCatalog productCatalog;
 
-    public ProductImageService(ProductRepository productRepository, S3StorageService s3) {
+    public ProductImageService(ProductRepository productRepository, S3StorageService s3, ProductCatalog productCatalog) {
         this.productRepository = productRepository;
         this.s3 = s3;
+        this.productCatalog = productCatalog;
     }
 
+    @CacheEvict(cacheNames = "products_pages", allEntries = true)
     public void uploadProductImage(UUID productId, MultipartFile file) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFound("product with id [" + productId + "] not found"));
@@ -34,7 +38,7 @@ public class ProductImageService {
             throw new RuntimeException("Failed to read uploaded file", e);
         }
         product.setImageUrl(key);
-        productRepository.save(product);
+        productCatalog.upsertAfterCommit(productRepository.save(product));
     }
 
     public S3StorageService.StoredObject downloadProductImage(UUID productId) {
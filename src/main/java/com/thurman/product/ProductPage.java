@@ -0,0 +1,12 @@
+package com.thurman.product;
+
+import java.util.List;
+
+/**
+ * @param nextCursor pass as {@code cursor} to get the following page; null on the last page
+ */
+public record ProductPage(
+        List<ProductResponse> items,
+        String nextCursor
+) {
+}
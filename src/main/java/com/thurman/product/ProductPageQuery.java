@@ -0,0 +1,18 @@
+package com.thurman.product;
+
+import java.math.BigDecimal;
+
+/**
+ * One page request: order, page size, where to start and optional filters (null = no filter).
+ * A record, so it doubles as the products_pages cache key.
+ */
+public record ProductPageQuery(
+        ProductSort sort,
+        int limit,
+        ProductCursor after,
+        Boolean published,
+        Boolean inStock,
+        BigDecimal minPrice,
+        BigDecimal maxPrice
+) {
+}
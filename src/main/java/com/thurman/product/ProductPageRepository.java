@@ -0,0 +1,12 @@
+package com.thurman.product;
+
+import java.util.List;
+
+public interface ProductPageRepository {
+
+    /**
+     * Keyset read: products matching the query's filters, in its sort order, strictly after
+     * its cursor. Returns at most {@code limit} rows.
+     */
+    List<ProductResponse> findPage(ProductPageQuery query, int limit);
+}
@@ -0,0 +1,80 @@
+package com.thurman.product;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class ProductPageRepositoryImpl implements ProductPageRepository {
+
+    static final RowMapper<ProductResponse> ROW_MAPPER = (rs, rowNum) -> new ProductResponse(
+            rs.getObject("id", UUID.class),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getBigDecimal("price"),
+            rs.getString("image_url"),
+            rs.getInt("stock_level"),
+            rs.getBoolean("is_published"),
+            toInstant(rs.getObject("created_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("updated_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("deleted_at", OffsetDateTime.class))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductPageRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ProductResponse> findPage(ProductPageQuery query, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = pageSql(query, args);
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Builds the page query and collects its arguments, minus the trailing LIMIT.
+     * The row-value comparison after the cursor is what lets Postgres start the scan of
+     * (sort column, id) at the cursor instead of counting past an OFFSET.
+     */
+    static String pageSql(ProductPageQuery query, List<Object> args) {
+        ProductSort sort = query.sort();
+        List<String> where = new ArrayList<>();
+        if (query.after() != null) {
+            where.add("(" + sort.column + ", id) " + sort.after + " (?, ?)");
+            args.add(sort.parse(query.after().value()));
+            args.add(query.after().id());
+        }
+        if (query.published() != null) {
+            // Literal rather than a parameter, so a generic plan can still use the partial indexes
+            where.add(query.published() ? "is_published" : "NOT is_published");
+        }
+        if (query.inStock() != null) {
+            where.add(query.inStock() ? "stock_level > 0" : "stock_level = 0");
+        }
+        if (query.minPrice() != null) {
+            where.add("price >= ?");
+            args.add(query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            where.add("price <= ?");
+            args.add(query.maxPrice());
+        }
+        return "SELECT id, name, description, price, image_url, stock_level, is_published,"
+                + " created_at, updated_at, deleted_at"
+                + " FROM product"
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY " + sort.column + " " + sort.direction + ", id " + sort.direction
+                + " LIMIT ?";
+    }
+
+    private static Instant toInstant(OffsetDateTime value) {
+        return value != null ? value.toInstant() : null;
+    }
+}
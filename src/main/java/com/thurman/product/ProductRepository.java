@@ -7,7 +7,7 @@ import java.util.List;
 import java.util.UUID;
 
 public interface ProductRepository
-        extends JpaRepository<Product, UUID> {
+        extends JpaRepository<Product, UUID>, ProductPageRepository {
 
     @Query("SELECT p FROM Product p WHERE p.isPublished AND p.stockLevel > 0 ORDER BY p.price ASC")
     List<Product> findAvailablePublishedProducts();
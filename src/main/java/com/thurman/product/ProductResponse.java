@@ -15,4 +15,19 @@ public record ProductResponse(
         Instant updatedAt,
         Instant deletedAt
 ) {
+
+    public static ProductResponse from(Product p) {
+        return new ProductResponse(
+                p.getId(),
+                p.getName(),
+                p.getDescription(),
+                p.getPrice(),
+                p.getImageUrl(),
+                p.getStockLevel(),
+                p.getPublished(),
+                p.getCreatedAt(),
+                p.getUpdatedAt(),
+                p.getDeletedAt()
+        );
+    }
 }
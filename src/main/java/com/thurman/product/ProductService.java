@@ -2,9 +2,13 @@ package com.thurman.product;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.config.CacheConfig;
 import com.thurman.exception.ResourceNotFound;
 import com.thurman.outbox.OutboxEvent;
 import com.thurman.outbox.OutboxEventRepository;
+import com.thurman.outbox.OutboxNotifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
@@ -16,9 +20,9 @@ import java.math.BigDecimal;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,48 +33,78 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ProductImageService productImageService;
     private final OutboxEventRepository outboxEventRepository;
+    private final OutboxNotifier outboxNotifier;
     private final ObjectMapper objectMapper;
+    private final ProductCatalog productCatalog;
+    private final Cache productsById;
 
     public ProductService(ProductRepository productRepository,
                           ProductImageService productImageService,
                           OutboxEventRepository outboxEventRepository,
-                          ObjectMapper objectMapper) {
+                          OutboxNotifier outboxNotifier,
+                          ObjectMapper objectMapper,
+                          ProductCatalog productCatalog,
+                          CacheManager cacheManager) {
         this.productRepository = productRepository;
         this.productImageService = productImageService;
         this.outboxEventRepository = outboxEventRepository;
+        this.outboxNotifier = outboxNotifier;
         this.objectMapper = objectMapper;
+        this.productCatalog = productCatalog;
+        this.productsById = Objects.requireNonNull(cacheManager.getCache(CacheConfig.PRODUCTS_BY_ID));
     }
 
-    // READ: cache the full list (short TTL configured in application.yml)
-    @Cacheable(cacheNames = "products_all")
+    // READ: the full list is kept in memory and updated in place by every write (see ProductCatalog)
     public List<ProductResponse> getAllProducts() {
-        if (log.isInfoEnabled()) {
-            log.info("DB HIT: getAllProducts()");
+        return productCatalog.all();
+    }
+
+    // READ: one keyset page; cached per query for a short TTL and cleared by every write
+    @Cacheable(cacheNames = "products_pages", sync = true)
+    public ProductPage getProductPage(ProductPageQuery query) {
+        // One extra row tells whether there is a next page without a COUNT
+        List<ProductResponse> rows = productRepository.findPage(query, query.limit() + 1);
+        if (rows.size() <= query.limit()) {
+            return new ProductPage(rows, null);
         }
-        System.out.println(">>> DB HIT: getAllProducts()");
-        return productRepository.findAll().stream()
-                .map(mapToResponse())
-                .collect(Collectors.toList());
+        List<ProductResponse> items = List.copyOf(rows.subList(0, query.limit()));
+        ProductCursor next = ProductCursor.after(query.sort(), items.get(items.size() - 1));
+        return new ProductPage(items, next.encode());
     }
 
-    // READ: cache by ID
-    @Cacheable(cacheNames = "products_by_id", key = "#id")
+    // READ: cache by ID, including "not found" (a cached null, kept for the shorter negative TTL).
+    // Looked up by hand because @Cacheable can't cache a thrown ResourceNotFound.
     public ProductResponse getProductById(UUID id) {
-        if (log.isInfoEnabled()) {
-            log.info("DB HIT: getProductById)");
+        ProductResponse product = productsById.get(id, () -> {
+            if (log.isInfoEnabled()) {
+                log.info("DB HIT: getProductById)");
+            }
+            return productRepository.findById(id)
+                    .map(mapToResponse())
+                    .orElse(null);
+        });
+        if (product == null) {
+            throw new ResourceNotFound(
+                    "product with id [" + id + "] not found"
+            );
         }
-        return productRepository.findById(id)
-                .map(mapToResponse())
-                .orElseThrow(() -> new ResourceNotFound(
-                        "product with id [" + id + "] not found"
-                ));
+        return product;
     }
 
-    // WRITE: evict caches
+    // SYNC: a product was changed by another replica; drop it from by-id and pages, re-read it into the catalog
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "products_by_id", key = "#id"),
+            @CacheEvict(cacheNames = "products_pages", allEntries = true)
+    })
+    public void refreshCachedProduct(UUID id) {
+        productCatalog.refresh(id);
+    }
+
+    // WRITE: evict by-id and pages, drop from the catalog
     @Transactional
     @Caching(evict = {
             @CacheEvict(cacheNames = "products_by_id", key = "#id"),
-            @CacheEvict(cacheNames = "products_all", allEntries = true)
+            @CacheEvict(cacheNames = "products_pages", allEntries = true)
     })
     public void deleteProductById(UUID id) {
         boolean exists = productRepository.existsById(id);
@@ -81,6 +115,7 @@ public class ProductService {
         }
 
         productRepository.deleteById(id);
+        productCatalog.removeAfterCommit(id);
 
         Map<String, Object> payload = new LinkedHashMap<>();
         payload.put("productId", id.toString());
@@ -88,9 +123,9 @@ public class ProductService {
         publishOutboxEvent("PRODUCT_DELETED", id.toString(), payload);
     }
 
-    // WRITE: evict list cache (and optionally by-id if you later return the created ProductResponse)
+    // WRITE: evict pages, add to the catalog
     @Transactional
-    @CacheEvict(cacheNames = "products_all", allEntries = true)
+    @CacheEvict(cacheNames = "products_pages", allEntries = true)
     public UUID saveNewProduct(NewProductRequest product) {
         UUID id = UUID.randomUUID();
 
@@ -103,7 +138,8 @@ public class ProductService {
                 product.stockLevel()
         );
 
-        productRepository.save(newProduct);
+        Product saved = productRepository.save(newProduct);
+        productCatalog.upsertAfterCommit(saved);
 
         Map<String, Object> payload = new LinkedHashMap<>();
         payload.put("productId", id.toString());
@@ -118,9 +154,9 @@ public class ProductService {
         return id;
     }
 
-    // WRITE: evict list cache
+    // WRITE: evict pages, add to the catalog
     @Transactional
-    @CacheEvict(cacheNames = "products_all", allEntries = true)
+    @CacheEvict(cacheNames = "products_pages", allEntries = true)
     public UUID saveNewProductWithImage(String name,
                                         String description,
                                         String price,
@@ -166,7 +202,8 @@ public class ProductService {
                 stockLevelValue
         );
 
-        productRepository.save(newProduct);
+        Product saved = productRepository.save(newProduct);
+        productCatalog.upsertAfterCommit(saved);
 
         // Upload image (best effort; do NOT fail product creation)
         boolean imageUploadAttempted = false;
@@ -196,11 +233,11 @@ public class ProductService {
         return id;
     }
 
-    // WRITE: evict by-id and list (if the product changed)
+    // WRITE: evict by-id and pages, replace in the catalog
     @Transactional
     @Caching(evict = {
             @CacheEvict(cacheNames = "products_by_id", key = "#id"),
-            @CacheEvict(cacheNames = "products_all", allEntries = true)
+            @CacheEvict(cacheNames = "products_pages", allEntries = true)
     })
     public void updateProduct(UUID id, UpdateProductRequest updateRequest) {
         Product product = productRepository.findById(id)
@@ -236,6 +273,7 @@ public class ProductService {
         }
 
         productRepository.save(product);
+        productCatalog.upsertAfterCommit(product);
 
         if (changed) {
             Map<String, Object> payload = new LinkedHashMap<>();
@@ -252,18 +290,7 @@ public class ProductService {
     }
 
     Function<Product, ProductResponse> mapToResponse() {
-        return p -> new ProductResponse(
-                p.getId(),
-                p.getName(),
-                p.getDescription(),
-                p.getPrice(),
-                p.getImageUrl(),
-                p.getStockLevel(),
-                p.getPublished(),
-                p.getCreatedAt(),
-                p.getUpdatedAt(),
-                p.getDeletedAt()
-        );
+        return ProductResponse::from;
     }
 
     private void publishOutboxEvent(String eventType, String aggregateId, Map<String, Object> payloadObj) {
@@ -283,5 +310,7 @@ public class ProductService {
         );
 
         outboxEventRepository.save(evt);
+        // Delivered to the publisher when this transaction commits
+        outboxNotifier.newEventsCommitted();
     }
 }
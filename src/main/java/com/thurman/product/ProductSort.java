@@ -0,0 +1,64 @@
+package com.thurman.product;
+
+import com.thurman.exception.BadRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Orders a product page can be read in. Each is a total order, with id as the tie-breaker,
+ * so a page boundary is one (value, id) pair and the next page starts strictly after it.
+ */
+public enum ProductSort {
+
+    // Newest first
+    CREATED_AT("created_at", "DESC", "<") {
+        @Override
+        String valueOf(ProductResponse product) {
+            return product.createdAt().toString();
+        }
+
+        @Override
+        Object parse(String value) {
+            return OffsetDateTime.ofInstant(Instant.parse(value), ZoneOffset.UTC);
+        }
+    },
+    // Cheapest first
+    PRICE("price", "ASC", ">") {
+        @Override
+        String valueOf(ProductResponse product) {
+            return product.price().toPlainString();
+        }
+
+        @Override
+        Object parse(String value) {
+            return new BigDecimal(value);
+        }
+    };
+
+    final String column;
+    final String direction;
+    final String after;
+
+    ProductSort(String column, String direction, String after) {
+        this.column = column;
+        this.direction = direction;
+        this.after = after;
+    }
+
+    /** The sort value of {@code product}, as stored in a cursor. */
+    abstract String valueOf(ProductResponse product);
+
+    /** A cursor's sort value as a JDBC parameter. */
+    abstract Object parse(String value);
+
+    public static ProductSort fromParam(String param) {
+        return switch (param.toLowerCase()) {
+            case "created_at", "created" -> CREATED_AT;
+            case "price" -> PRICE;
+            default -> throw new BadRequest("unknown sort [" + param + "], expected created_at or price");
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.thurman.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Popular items" model for the cold-start / fallback path.
+ * <p>
+ * Every served recommendation adds 1 to the item's score and all scores halve every
+ * {@code recommendations.popular.half-life}, so the ranking follows recent traffic.
+ * Scores are fed from the inference.events.v1 stream and seeded from inference_event_log
+ * on startup. A background refresh decays, prunes to {@code max-tracked} items and
+ * publishes the top {@code top-k} as an immutable list, so {@link #top()} never touches
+ * the database.
+ */
+@Slf4j
+@Component
+public class PopularItemsTracker {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final int maxTracked;
+    private final Duration halfLife;
+    private final Duration bootstrapWindow;
+    private final List<Integer> defaults;
+
+    private final Map<Integer, Double> scores = new ConcurrentHashMap<>();
+    private volatile List<Integer> top;
+    // Guarded by this: bootstrap() and the scheduled refresh() may overlap, and each elapsed
+    // interval must be decayed exactly once
+    private long lastDecayNanos = System.nanoTime();
+
+    public PopularItemsTracker(
+            JdbcTemplate jdbcTemplate,
+            @Value("${recommendations.popular.top-k:5}") int topK,
+            @Value("${recommendations.popular.max-tracked:10000}") int maxTracked,
+            @Value("${recommendations.popular.half-life:1h}") Duration halfLife,
+            @Value("${recommendations.popular.bootstrap-window:24h}") Duration bootstrapWindow,
+            @Value("${recommendations.popular.defaults:1,2,3,101,102}") List<Integer> defaults
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        this.maxTracked = maxTracked;
+        this.halfLife = halfLife;
+        this.bootstrapWindow = bootstrapWindow;
+        this.defaults = List.copyOf(defaults);
+        this.top = this.defaults;
+    }
+
+    /**
+     * Current popular items, most popular first. Falls back to the configured defaults
+     * until any traffic has been seen.
+     */
+    public List<Integer> top() {
+        return top;
+    }
+
+    public void record(List<Integer> recommendations) {
+        if (recommendations == null) {
+            return;
+        }
+        for (Integer item : recommendations) {
+            if (item != null) {
+                scores.merge(item, 1.0, Double::sum);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        // Same decay as the live path, computed once in SQL over the recent window
+        String sql = """
+                SELECT item::int AS item,
+                       sum(power(0.5, extract(epoch FROM (now() - event_time)) / ?)) AS score
+                FROM inference_event_log,
+                     jsonb_array_elements_text(recommendations) AS item
+                WHERE event_time > now() - make_interval(secs => ?)
+                  AND item ~ '^[0-9]+$'
+                GROUP BY item
+                ORDER BY score DESC
+                LIMIT ?
+                """;
+        try {
+            jdbcTemplate.query(sql,
+                    rs -> {
+                        scores.merge(rs.getInt("item"), rs.getDouble("score"), Double::sum);
+                    },
+                    (double) halfLife.toSeconds(), (double) bootstrapWindow.toSeconds(), maxTracked);
+            refresh();
+            log.info("Popular items seeded from inference_event_log: {} items tracked, top={}", scores.size(), top);
+        } catch (Exception e) {
+            log.warn("Could not seed popular items from inference_event_log, using defaults: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommendations.popular.refresh-ms:5000}")
+    public synchronized void refresh() {
+        long now = System.nanoTime();
+        applyDecay(Duration.ofNanos(now - lastDecayNanos));
+        lastDecayNanos = now;
+
+        List<Map.Entry<Integer, Double>> ranked = topEntries(Math.max(topK, 1));
+        if (!ranked.isEmpty()) {
+            top = ranked.stream().map(Map.Entry::getKey).limit(topK).toList();
+        }
+        prune();
+    }
+
+    void applyDecay(Duration elapsed) {
+        double factor = Math.pow(0.5, (double) elapsed.toNanos() / halfLife.toNanos());
+        scores.replaceAll((item, score) -> score * factor);
+        // Anything that has decayed below a fraction of one hit is noise
+        scores.values().removeIf(score -> score < 0.01);
+    }
+
+    private void prune() {
+        int excess = scores.size() - maxTracked;
+        if (excess <= 0) {
+            return;
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> lowest = new PriorityQueue<>(
+                Map.Entry.<Integer, Double>comparingByValue().reversed());
+        for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+            lowest.offer(Map.entry(e.getKey(), e.getValue()));
+            if (lowest.size() > excess) {
+                lowest.poll();
+            }
+        }
+        lowest.forEach(e -> scores.remove(e.getKey()));
+    }
+
+    private List<Map.Entry<Integer, Double>> topEntries(int k) {
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+            heap.offer(Map.entry(e.getKey(), e.getValue()));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder()));
+        return ranked;
+    }
+}
@@ -0,0 +1,170 @@
+package com.thurman.recommendations;
+
+import com.thurman.config.Threads;
+import com.thurman.inference.InferenceClient;
+import com.thurman.inference.ReactiveInferenceClient;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Recommendation flow behind /recommendations/{id}: ask the model, decorate the answer,
+ * and fall back to popular items when the model is empty, failing, too slow or short-circuited.
+ * {@link #recommendReactive(long)} is the same flow without a thread parked on the call.
+ */
+@Service
+public class RecommendationService {
+
+    private final InferenceClient inferenceClient;
+    private final ReactiveInferenceClient reactiveInferenceClient;
+    private final PopularItemsTracker popularItems;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration latencyBudget;
+    private final int reactiveRetries;
+    private final Duration reactiveRetryBackoff;
+    private final ExecutorService executor;
+
+    public RecommendationService(
+            InferenceClient inferenceClient,
+            ReactiveInferenceClient reactiveInferenceClient,
+            PopularItemsTracker popularItems,
+            CircuitBreaker inferenceCircuitBreaker,
+            @Value("${recommendations.latency-budget:800ms}") Duration latencyBudget,
+            @Value("${recommendations.max-in-flight:200}") int maxInFlight,
+            @Value("${recommendations.reactive.retries:1}") int reactiveRetries,
+            @Value("${recommendations.reactive.retry-backoff:50ms}") Duration reactiveRetryBackoff,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.inferenceClient = inferenceClient;
+        this.reactiveInferenceClient = reactiveInferenceClient;
+        this.popularItems = popularItems;
+        this.circuitBreaker = inferenceCircuitBreaker;
+        this.latencyBudget = latencyBudget;
+        this.reactiveRetries = reactiveRetries;
+        this.reactiveRetryBackoff = reactiveRetryBackoff;
+        // No queue: once maxInFlight calls are waiting on inference, new requests fall back at once
+        this.executor = new ThreadPoolExecutor(
+                0, maxInFlight,
+                60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                Threads.factory("recommendations-", virtualThreads)
+        );
+    }
+
+    public Map<String, Object> recommend(long id) {
+        Map<String, Object> resp;
+        try {
+            resp = CompletableFuture
+                    .supplyAsync(() -> circuitBreaker.executeSupplier(() -> inferenceClient.recommendations(id)), executor)
+                    .get(latencyBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The call keeps running and still counts towards the breaker's slow-call rate
+            return fallback(id, "latency_budget_exceeded", "no answer within " + latencyBudget.toMillis() + "ms");
+        } catch (RejectedExecutionException e) {
+            return fallback(id, "overloaded", "too many inference calls in flight");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CallNotPermittedException) {
+                return fallback(id, "circuit_open", e.getCause().getMessage());
+            }
+            if (e.getCause() instanceof RestClientException cause) {
+                // ✅ Fallback when inference is down / times out / returns non-parseable response
+                return fallback(id, "inference_error", cause.getMessage());
+            }
+            throw new RuntimeException("Recommendation call failed for id " + id, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback(id, "interrupted", e.getMessage());
+        }
+
+        return decorate(id, resp);
+    }
+
+    public Mono<Map<String, Object>> recommendReactive(long id) {
+        return Mono.defer(() -> reactiveInferenceClient.recommendations(id))
+                // Only transient transport/5xx errors retry
+                .retryWhen(Retry.backoff(reactiveRetries, reactiveRetryBackoff)
+                        .filter(RecommendationService::isTransient)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                // The budget covers all attempts, not each one
+                .timeout(latencyBudget)
+                // Outside the timeout, so running out of budget is recorded as a failed call: a call
+                // cancelled inside the operator would release its permission without being recorded
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .map(resp -> decorate(id, resp))
+                .switchIfEmpty(Mono.fromSupplier(() -> decorate(id, null)))
+                .onErrorResume(e -> Mono.just(reactiveFallback(id, e)));
+    }
+
+    private Map<String, Object> reactiveFallback(long id, Throwable e) {
+        if (e instanceof TimeoutException) {
+            return fallback(id, "latency_budget_exceeded", "no answer within " + latencyBudget.toMillis() + "ms");
+        }
+        if (e instanceof CallNotPermittedException) {
+            return fallback(id, "circuit_open", e.getMessage());
+        }
+        return fallback(id, "inference_error", e.getMessage());
+    }
+
+    private static boolean isTransient(Throwable e) {
+        return e instanceof WebClientRequestException
+                || (e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError());
+    }
+
+    private Map<String, Object> decorate(long id, Map<String, Object> resp) {
+        // Copy body to a mutable map so we can annotate/fallback
+        Map<String, Object> body = resp != null ? new HashMap<>(resp) : new HashMap<>();
+
+        // Normalize recommendations field
+        Object recObj = body.get("recommendations");
+        List<?> recs = (recObj instanceof List) ? (List<?>) recObj : List.of();
+
+        if (recs.isEmpty()) {
+            // ✅ Backend fallback (Option 1)
+            body.put("recommendations", popularItems.top());
+            body.put("source", "fallback_popular");
+            body.put("reason", "empty_recs_or_cold_start");
+        } else {
+            body.put("source", "ml");
+        }
+
+        // Always include id for clarity (helps demo.sh + debugging)
+        body.putIfAbsent("user_id", id);
+        return body;
+    }
+
+    private Map<String, Object> fallback(long id, String reason, String detail) {
+        Map<String, Object> fallbackBody = new HashMap<>();
+        fallbackBody.put("user_id", id);
+        fallbackBody.put("recommendations", popularItems.top());
+        fallbackBody.put("source", "fallback_popular");
+        fallbackBody.put("reason", reason);
+        fallbackBody.put("detail", detail);
+        return fallbackBody;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
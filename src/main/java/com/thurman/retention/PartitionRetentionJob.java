@@ -0,0 +1,193 @@
+package com.thurman.retention;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Keeps the daily partitions of outbox_events and processed_events (see V8) rolling:
+ * creates the next {@code PARTITION_PRECREATE_DAYS} days ahead of time and drops whole
+ * partitions once every row in them is past the table's retention window.
+ * <p>
+ * If maintenance fell behind and rows landed in the DEFAULT partition, their day's partition is
+ * created by moving those rows out of DEFAULT first; Postgres refuses to attach a range that
+ * DEFAULT still holds rows for.
+ * <p>
+ * An outbox partition is only dropped when it holds no unfinished rows (NEW, PROCESSING or
+ * FAILED), so a long outage delays retention rather than losing data. PARKED rows will never be
+ * sent, so they are copied to outbox_events_parked and dropped with the rest of their day.
+ * processed_events is partitioned by the event's created_at, and its retention bounds the
+ * consumer's dedup window, so it must stay longer than the outbox topic's retention.
+ */
+@Slf4j
+@Component
+public class PartitionRetentionJob {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int precreateDays;
+    private final List<ManagedTable> tables;
+
+    public PartitionRetentionJob(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${PARTITION_PRECREATE_DAYS:3}") int precreateDays,
+            @Value("${OUTBOX_RETENTION_DAYS:7}") int outboxRetentionDays,
+            @Value("${PROCESSED_EVENTS_RETENTION_DAYS:14}") int processedEventsRetentionDays
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.precreateDays = precreateDays;
+        this.tables = List.of(
+                new ManagedTable("outbox_events", "created_at", outboxRetentionDays,
+                        "status IN ('NEW', 'PROCESSING', 'FAILED')", "status = 'PARKED'"),
+                new ManagedTable("processed_events", "event_created_at", processedEventsRetentionDays, null, null)
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${PARTITION_MAINTENANCE_CRON:0 15 * * * *}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (ManagedTable table : tables) {
+            try {
+                createUpcoming(table, today);
+                dropExpired(table, today);
+            } catch (Exception e) {
+                log.warn("Partition maintenance for {} failed: {}", table.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void createUpcoming(ManagedTable table, LocalDate today) {
+        List<LocalDate> stranded = jdbcTemplate.queryForList(
+                "SELECT DISTINCT (%s AT TIME ZONE 'UTC')::date FROM %s_default".formatted(table.partitionKey(), table.name()),
+                LocalDate.class);
+        for (LocalDate day : daysToCreate(today, precreateDays, stranded)) {
+            String partition = partitionName(table.name(), day);
+            Integer moved = transactionTemplate.execute(status -> {
+                // Every replica runs this; the lock and the existence check make the race harmless
+                jdbcTemplate.queryForObject("SELECT 1 FROM pg_advisory_xact_lock(hashtext(?))", Integer.class, partition);
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition))) {
+                    return null;
+                }
+                // Attaching takes a lock on the parent and scans DEFAULT; give up rather than queue behind long writers
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                String from = day + " 00:00:00+00";
+                String to = day.plusDays(1) + " 00:00:00+00";
+                jdbcTemplate.execute("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS)".formatted(partition, table.name()));
+                int rows = jdbcTemplate.update("""
+                        WITH moved AS (
+                            DELETE FROM %s_default WHERE %s >= '%s' AND %s < '%s' RETURNING *
+                        )
+                        INSERT INTO %s SELECT * FROM moved
+                        """.formatted(table.name(), table.partitionKey(), from, table.partitionKey(), to, partition));
+                jdbcTemplate.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                        .formatted(table.name(), partition, from, to));
+                return rows;
+            });
+            if (moved != null && moved > 0) {
+                log.info("Created partition {}, moving {} rows out of {}_default", partition, moved, table.name());
+            }
+        }
+    }
+
+    private void dropExpired(ManagedTable table, LocalDate today) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = ?::regclass
+                """, String.class, table.name());
+
+        for (String partition : expiredPartitions(table.name(), partitions, today, table.retentionDays())) {
+            Boolean dropped = transactionTemplate.execute(status -> {
+                // Dropping a partition locks the parent; give up rather than queue behind long writers
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                if (table.unfinishedRows() != null && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM %s WHERE %s)".formatted(partition, table.unfinishedRows()),
+                        Boolean.class))) {
+                    return false;
+                }
+                if (table.parkedRows() != null) {
+                    int parked = jdbcTemplate.update("INSERT INTO %s_parked SELECT * FROM %s WHERE %s"
+                            .formatted(table.name(), partition, table.parkedRows()));
+                    if (parked > 0) {
+                        log.info("Moved {} parked rows from {} to {}_parked", parked, partition, table.name());
+                    }
+                }
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                return true;
+            });
+            if (Boolean.TRUE.equals(dropped)) {
+                log.info("Dropped expired partition {} ({} day retention)", partition, table.retentionDays());
+            } else {
+                log.warn("Kept expired partition {}: it still has unfinished rows", partition);
+            }
+        }
+    }
+
+    /**
+     * Daily partitions of {@code table} whose whole day is older than {@code retentionDays}.
+     * Anything not named {@code <table>_pYYYYMMDD}, such as the DEFAULT partition, is never expired.
+     */
+    static List<String> expiredPartitions(String table, List<String> partitions, LocalDate today, int retentionDays) {
+        LocalDate cutoff = today.minusDays(retentionDays);
+        String prefix = table + "_p";
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            if (!partition.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                LocalDate day = LocalDate.parse(partition.substring(prefix.length()), SUFFIX);
+                // The partition ends at the start of the next day
+                if (!day.plusDays(1).isAfter(cutoff)) {
+                    expired.add(partition);
+                }
+            } catch (DateTimeParseException e) {
+                // Not one of ours
+            }
+        }
+        expired.sort(null);
+        return expired;
+    }
+
+    /**
+     * The next {@code precreateDays} days from {@code today}, plus any day that has rows stranded
+     * in the DEFAULT partition, in order.
+     */
+    static List<LocalDate> daysToCreate(LocalDate today, int precreateDays, List<LocalDate> stranded) {
+        TreeSet<LocalDate> days = new TreeSet<>(stranded);
+        for (int i = 0; i <= precreateDays; i++) {
+            days.add(today.plusDays(i));
+        }
+        return List.copyOf(days);
+    }
+
+    static String partitionName(String table, LocalDate day) {
+        return table + "_p" + day.format(SUFFIX);
+    }
+
+    /**
+     * @param unfinishedRows condition for rows that keep an expired partition alive, or null
+     * @param parkedRows     condition for rows copied to {@code <name>_parked} before the drop, or null
+     */
+    private record ManagedTable(String name, String partitionKey, int retentionDays,
+                                String unfinishedRows, String parkedRows) {}
+}
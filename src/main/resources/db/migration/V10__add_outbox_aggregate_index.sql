@@ -0,0 +1,4 @@
+-- Claims look up the older and later rows of each candidate's aggregate (see
+-- OutboxEventClaimRepositoryImpl); without this every candidate would scan the table.
+CREATE INDEX IF NOT EXISTS idx_outbox_events_aggregate_id_created_at
+    ON outbox_events (aggregate_id, created_at);
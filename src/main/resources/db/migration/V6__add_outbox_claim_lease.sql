@@ -0,0 +1,10 @@
+-- Lease columns for multi-instance outbox claiming (SELECT ... FOR UPDATE SKIP LOCKED).
+-- A publisher moves rows NEW -> PROCESSING with a lease; rows whose lease has run out
+-- (publisher crashed mid-batch) are claimable again.
+ALTER TABLE outbox_events
+    ADD COLUMN IF NOT EXISTS locked_by TEXT NULL,
+    ADD COLUMN IF NOT EXISTS locked_until TIMESTAMP NULL;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_processing_locked_until
+    ON outbox_events (locked_until)
+    WHERE status = 'PROCESSING';
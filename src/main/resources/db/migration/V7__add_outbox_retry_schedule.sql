@@ -0,0 +1,14 @@
+-- Retry schedule for FAILED outbox events.
+-- A failed send sets next_attempt_at = now() + exponential backoff with jitter; the retry stage
+-- re-claims FAILED rows once it has passed. Rows that run out of attempts move to PARKED.
+ALTER TABLE outbox_events
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NULL;
+
+-- Rows that failed before this migration are due straight away
+UPDATE outbox_events
+SET next_attempt_at = now()
+WHERE status = 'FAILED' AND next_attempt_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_failed_next_attempt_at
+    ON outbox_events (next_attempt_at)
+    WHERE status = 'FAILED';
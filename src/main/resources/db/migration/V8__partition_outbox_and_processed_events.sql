@@ -0,0 +1,106 @@
+-- Daily range partitions for outbox_events (by created_at) and processed_events (by the event's
+-- created_at), so retention is a DROP TABLE of a whole expired partition instead of DELETEs and bloat.
+-- Partitions are named <table>_pYYYYMMDD and cover that UTC day; PartitionRetentionJob creates
+-- upcoming days ahead of time and drops expired ones. The DEFAULT partitions only catch rows
+-- if maintenance has fallen behind; the job moves them into their day's partition when it creates it.
+-- Primary keys on a partitioned table must include the partition key.
+
+-- outbox_events -------------------------------------------------------------------------------
+
+ALTER TABLE outbox_events RENAME TO outbox_events_unpartitioned;
+ALTER INDEX IF EXISTS outbox_events_pkey RENAME TO outbox_events_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_outbox_events_status_created_at;
+DROP INDEX IF EXISTS idx_outbox_events_processing_locked_until;
+DROP INDEX IF EXISTS idx_outbox_events_failed_next_attempt_at;
+
+-- created_at was a TIMESTAMP in the writer's time zone, so UTC day bounds only lined up when the
+-- JVM ran in UTC. Existing values are read in the session time zone, the zone they were written in.
+ALTER TABLE outbox_events_unpartitioned ALTER COLUMN created_at TYPE timestamptz;
+
+CREATE TABLE outbox_events (
+    LIKE outbox_events_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE outbox_events_default PARTITION OF outbox_events DEFAULT;
+
+CREATE INDEX idx_outbox_events_status_created_at
+    ON outbox_events (status, created_at);
+
+CREATE INDEX idx_outbox_events_processing_locked_until
+    ON outbox_events (locked_until)
+    WHERE status = 'PROCESSING';
+
+CREATE INDEX idx_outbox_events_failed_next_attempt_at
+    ON outbox_events (next_attempt_at)
+    WHERE status = 'FAILED';
+
+-- PARKED rows are copied here before their partition is dropped, so they stay inspectable
+-- without pinning a whole day of SENT rows. Columns added to outbox_events must be added here too.
+CREATE TABLE outbox_events_parked (
+    LIKE outbox_events_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (id)
+);
+
+-- processed_events ----------------------------------------------------------------------------
+
+-- Partitioned by the event's own created_at rather than processed_at: it is fixed per event, so
+-- (event_id, event_created_at) still rejects a redelivered event and inserts can use
+-- ON CONFLICT DO NOTHING. Lookups by event_id alone use the primary key, which leads with it.
+ALTER TABLE processed_events RENAME TO processed_events_unpartitioned;
+ALTER INDEX IF EXISTS processed_events_pkey RENAME TO processed_events_unpartitioned_pkey;
+
+CREATE TABLE processed_events (
+    event_id         uuid        NOT NULL,
+    event_created_at timestamptz NOT NULL,
+    processed_at     timestamptz NOT NULL DEFAULT now(),
+    status           varchar(32) NOT NULL,
+    error            text        NULL,
+    PRIMARY KEY (event_id, event_created_at)
+) PARTITION BY RANGE (event_created_at);
+
+CREATE TABLE processed_events_default PARTITION OF processed_events DEFAULT;
+
+-- ProcessedEventFilter seeds itself from the most recently created events
+CREATE INDEX idx_processed_events_event_created_at
+    ON processed_events (event_created_at);
+
+-- One partition per day from the oldest existing row through three days ahead ----------------
+
+DO $$
+DECLARE
+    spec RECORD;
+    first_day DATE;
+    d DATE;
+BEGIN
+    FOR spec IN
+        SELECT * FROM (VALUES
+            ('outbox_events', 'created_at'),
+            -- Existing rows get processed_at as their event time, see below
+            ('processed_events', 'processed_at')
+        ) AS t(tbl, col)
+    LOOP
+        -- A day of slack so session time zone vs UTC can't leave the oldest rows in DEFAULT
+        EXECUTE format('SELECT coalesce(min(%I)::date, (now() AT TIME ZONE ''UTC'')::date) - 1 FROM %I',
+                       spec.col, spec.tbl || '_unpartitioned')
+            INTO first_day;
+        d := first_day;
+        WHILE d <= (now() AT TIME ZONE 'UTC')::date + 3 LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           spec.tbl || '_p' || to_char(d, 'YYYYMMDD'), spec.tbl,
+                           d::text || ' 00:00:00+00', (d + 1)::text || ' 00:00:00+00');
+            d := d + 1;
+        END LOOP;
+    END LOOP;
+END $$;
+
+INSERT INTO outbox_events SELECT * FROM outbox_events_unpartitioned;
+
+-- Rows written before this migration don't record the event's created_at; processed_at is the
+-- closest thing we have and is never earlier than it
+INSERT INTO processed_events (event_id, event_created_at, processed_at, status, error)
+SELECT event_id, processed_at, processed_at, status, error
+FROM processed_events_unpartitioned;
+
+DROP TABLE outbox_events_unpartitioned;
+DROP TABLE processed_events_unpartitioned;
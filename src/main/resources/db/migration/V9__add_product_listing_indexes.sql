@@ -0,0 +1,18 @@
+-- Keyset pagination for GET /api/v1/products/page.
+-- Each index matches one page order, (sort column, id), so a page is a range scan that starts
+-- at the cursor and stops after LIMIT rows.
+CREATE INDEX IF NOT EXISTS idx_product_created_at_id
+    ON product (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_product_price_id
+    ON product (price, id);
+
+-- The storefront filter (published and in stock) in both orders; the price one also serves
+-- ProductRepository.findAvailablePublishedProducts
+CREATE INDEX IF NOT EXISTS idx_product_available_created_at_id
+    ON product (created_at DESC, id DESC)
+    WHERE is_published AND stock_level > 0;
+
+CREATE INDEX IF NOT EXISTS idx_product_available_price_id
+    ON product (price, id)
+    WHERE is_published AND stock_level > 0;
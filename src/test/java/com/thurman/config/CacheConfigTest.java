@@ -0,0 +1,87 @@
+package com.thurman.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.thurman.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class CacheConfigTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    private CacheManager underTest;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfig config = new CacheConfig();
+        ReflectionTestUtils.setField(config, "byIdMaxSize", 100L);
+        ReflectionTestUtils.setField(config, "byIdTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(config, "byIdRefreshAfter", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(config, "byIdNegativeTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(config, "pagesMaxSize", 100L);
+        ReflectionTestUtils.setField(config, "pagesTtl", Duration.ofSeconds(30));
+        underTest = config.cacheManager(productRepository);
+    }
+
+    @Test
+    void cachesNotFoundAndRecordsStats() {
+        // given
+        Cache byId = underTest.getCache(CacheConfig.PRODUCTS_BY_ID);
+        UUID missing = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        Object first = byId.get(missing, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        Object second = byId.get(missing, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(loads).hasValue(1);
+        CacheStats stats = ((CaffeineCache) byId).getNativeCache().stats();
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresNotFoundEntriesSooner() {
+        // given
+        CacheConfig.NegativeAwareExpiry expiry =
+                new CacheConfig.NegativeAwareExpiry(Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+        // when & then
+        assertThat(expiry.expireAfterCreate("k", NullValue.INSTANCE, 0))
+                .isEqualTo(Duration.ofSeconds(30).toNanos());
+        assertThat(expiry.expireAfterCreate("k", "product", 0))
+                .isEqualTo(Duration.ofMinutes(10).toNanos());
+    }
+
+    @Test
+    void doesNotCreateUnknownCaches() {
+        // when & then
+        assertThat(underTest.getCache("products_by_name")).isNull();
+        assertThat(underTest.getCacheNames())
+                .containsExactlyInAnyOrder(CacheConfig.PRODUCTS_BY_ID, CacheConfig.PRODUCTS_PAGES);
+    }
+}
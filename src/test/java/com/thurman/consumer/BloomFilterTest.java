@@ -0,0 +1,62 @@
+package com.thurman.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsAnAddedId() {
+        // given
+        BloomFilter underTest = new BloomFilter(10_000, 0.01);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        // when
+        ids.forEach(underTest::put);
+
+        // then
+        assertThat(ids).allMatch(underTest::mightContain);
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRateAtCapacity() {
+        // given
+        BloomFilter underTest = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put(UUID.randomUUID());
+        }
+
+        // when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (underTest.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void readdingAnIdDoesNotUseUpCapacity() {
+        // given
+        BloomFilter underTest = new BloomFilter(100, 0.01);
+        UUID id = UUID.randomUUID();
+
+        // when
+        underTest.put(id);
+        underTest.put(id);
+
+        // then
+        assertThat(underTest.size()).isEqualTo(1);
+    }
+}
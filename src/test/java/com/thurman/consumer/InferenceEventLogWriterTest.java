@@ -0,0 +1,32 @@
+package com.thurman.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InferenceEventLogWriterTest {
+
+    @Test
+    void encodesRowsAsCopyCsv() {
+        // given
+        UUID id = UUID.fromString("6f1c2f9e-8d1a-4c1e-9a43-2c7b1f0e5d10");
+        InferenceEventLogWriter.Row full = new InferenceEventLogWriter.Row(
+                id, "InferenceServed", Instant.parse("2026-10-17T08:30:00Z"),
+                "42", "v\"3\"", 17, "[101,102]");
+        InferenceEventLogWriter.Row sparse = new InferenceEventLogWriter.Row(
+                id, "InferenceServed", Instant.parse("2026-10-17T08:30:00.250Z"),
+                "7", null, null, "[]");
+
+        // when
+        String csv = InferenceEventLogWriter.toCsv(List.of(full, sparse));
+
+        // then
+        assertThat(csv).isEqualTo(
+                id + ",\"InferenceServed\",2026-10-17T08:30,\"42\",\"v\"\"3\"\"\",17,\"[101,102]\"\n"
+                        + id + ",\"InferenceServed\",2026-10-17T08:30:00.250,\"7\",,,\"[]\"\n");
+    }
+}
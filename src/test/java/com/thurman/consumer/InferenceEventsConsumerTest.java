@@ -0,0 +1,105 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thurman.recommendations.PopularItemsTracker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InferenceEventsConsumerTest {
+
+    @Mock
+    private PopularItemsTracker popularItemsTracker;
+    @Mock
+    private InferenceEventLogWriter inferenceEventLogWriter;
+    @Mock
+    private Acknowledgment ack;
+    private InferenceEventsConsumer underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new InferenceEventsConsumer(new ObjectMapper(), popularItemsTracker, inferenceEventLogWriter);
+    }
+
+    @Test
+    void storesRecordsBeforeAnUnreadableOneThenFails() {
+        // given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, event(first)),
+                record(1, event(second)),
+                record(2, "{not json"),
+                record(3, event(UUID.randomUUID())));
+        when(inferenceEventLogWriter.write(anyList())).thenReturn(new HashSet<>(Set.of(first, second)));
+
+        // when & then
+        assertThatThrownBy(() -> underTest.onMessages(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(2));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InferenceEventLogWriter.Row>> written = ArgumentCaptor.forClass(List.class);
+        verify(inferenceEventLogWriter).write(written.capture());
+        assertThat(written.getValue()).extracting(InferenceEventLogWriter.Row::eventId).containsExactly(first, second);
+        verify(popularItemsTracker, times(2)).record(List.of(101, 102));
+        verifyNoInteractions(ack);
+    }
+
+    @Test
+    void countsOnlyNewlyStoredEventsTowardsPopularity() throws Exception {
+        // given: the first event was stored before, this is a redelivery
+        UUID redelivered = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, event(redelivered)),
+                record(1, event(fresh).replace("[101,102]", "[201]")));
+        when(inferenceEventLogWriter.write(anyList())).thenReturn(new HashSet<>(Set.of(fresh)));
+
+        // when
+        underTest.onMessages(records, ack);
+
+        // then
+        verify(popularItemsTracker).record(List.of(201));
+        verifyNoMoreInteractions(popularItemsTracker);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void failsWithoutWritingWhenTheFirstRecordIsUnreadable() {
+        // given
+        List<ConsumerRecord<String, String>> records = List.of(record(0, null), record(1, event(UUID.randomUUID())));
+
+        // when & then
+        assertThatThrownBy(() -> underTest.onMessages(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(0));
+        verifyNoInteractions(inferenceEventLogWriter, ack);
+    }
+
+    private static String event(UUID id) {
+        return """
+                {"event_id":"%s","event_type":"InferenceServed","user_id":"42","latency_ms":12,"recommendations":[101,102]}
+                """.formatted(id);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("inference.events.v1", 0, offset, "42", value);
+    }
+}
@@ -0,0 +1,80 @@
+package com.thurman.consumer;
+
+import com.thurman.AbstractTestConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Database side of record vs batch outbox consumption, against a real Postgres: the same
+ * messages go through the per-record path (existsById + one transaction per message) and
+ * through {@link ProcessedEventService#processAll} in poll-sized batches. Kafka is left out
+ * so the numbers reflect the listener's own per-message cost. The batch path must beat the
+ * record path on the same machine. Run with
+ * {@code mvn verify -Dit.test=OutboxConsumerThroughputIT}.
+ */
+@Slf4j
+class OutboxConsumerThroughputIT extends AbstractTestConfig {
+
+    private static final int MESSAGES = 10_000;
+    private static final int POLL_SIZE = 500;
+
+    @Autowired
+    private ProcessedEventService processedEventService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM processed_events");
+    }
+
+    @Test
+    void batchPathOutrunsRecordPath() {
+        // given
+        List<OutboxEventMessage> recordMsgs = messages();
+        List<OutboxEventMessage> batchMsgs = messages();
+
+        // when
+        long recordStart = System.nanoTime();
+        for (OutboxEventMessage msg : recordMsgs) {
+            if (!processedEventService.isAlreadyProcessed(msg)) {
+                processedEventService.process(msg);
+            }
+        }
+        long recordMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recordStart);
+
+        long batchStart = System.nanoTime();
+        for (int i = 0; i < batchMsgs.size(); i += POLL_SIZE) {
+            processedEventService.processAll(batchMsgs.subList(i, Math.min(i + POLL_SIZE, batchMsgs.size())));
+        }
+        long batchMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart);
+
+        // then
+        long recordRate = MESSAGES * 1000L / Math.max(recordMs, 1);
+        long batchRate = MESSAGES * 1000L / Math.max(batchMs, 1);
+        log.info("Outbox consumer: record {} msg/s, batch({}) {} msg/s", recordRate, POLL_SIZE, batchRate);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM processed_events", Integer.class))
+                .isEqualTo(2 * MESSAGES);
+        assertThat(batchMs).isLessThan(recordMs);
+    }
+
+    private static List<OutboxEventMessage> messages() {
+        List<OutboxEventMessage> msgs = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            msgs.add(new OutboxEventMessage(UUID.randomUUID(), "PRODUCT", UUID.randomUUID(),
+                    "PRODUCT_UPDATED", Instant.now(), "{}"));
+        }
+        return msgs;
+    }
+}
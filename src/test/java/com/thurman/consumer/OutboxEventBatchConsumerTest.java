@@ -0,0 +1,91 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxEventBatchConsumerTest {
+
+    @Mock
+    private ProcessedEventService processedEventService;
+    @Mock
+    private ProcessedEventFilter processedEventFilter;
+    @Mock
+    private Acknowledgment ack;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OutboxEventBatchConsumer underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new OutboxEventBatchConsumer(objectMapper, processedEventService, processedEventFilter);
+    }
+
+    @Test
+    void recordsMessagesBeforeAnUnreadableOneThenFails() throws Exception {
+        // given
+        OutboxEventMessage first = message();
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, objectMapper.writeValueAsString(first)),
+                record(1, "{not json"),
+                record(2, objectMapper.writeValueAsString(message())));
+
+        // when & then
+        assertThatThrownBy(() -> underTest.onMessages(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(1));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxEventMessage>> processed = ArgumentCaptor.forClass(List.class);
+        verify(processedEventService).processAll(processed.capture());
+        assertThat(processed.getValue()).containsExactly(first);
+        verifyNoInteractions(ack);
+    }
+
+    @Test
+    void treatsAMessageWithoutCreatedAtAsUnreadable() throws Exception {
+        // given
+        OutboxEventMessage first = message();
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, objectMapper.writeValueAsString(first)),
+                record(1, """
+                        {"id":"%s","aggregateType":"PRODUCT","eventType":"PRODUCT_UPDATED","payloadJson":"{}"}
+                        """.formatted(UUID.randomUUID())));
+
+        // when & then
+        assertThatThrownBy(() -> underTest.onMessages(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> {
+                            assertThat(e.getIndex()).isEqualTo(1);
+                            // Not retryable, so the error handler dead-letters it straight away
+                            assertThat(e).hasCauseInstanceOf(JsonProcessingException.class);
+                        });
+        verify(processedEventService).processAll(List.of(first));
+        verifyNoInteractions(ack);
+    }
+
+    private static OutboxEventMessage message() {
+        return new OutboxEventMessage(UUID.randomUUID(), "PRODUCT", UUID.randomUUID(),
+                "PRODUCT_UPDATED", Instant.parse("2026-10-17T08:00:00Z"), "{}");
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("outbox-events", 0, offset, "key", value);
+    }
+}
@@ -0,0 +1,107 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thurman.kafka.KeyOrderedParallelProcessor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxEventParallelConsumerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("outbox-events", 0);
+
+    @Mock
+    private ProcessedEventService processedEventService;
+    @Mock
+    private ProcessedEventFilter processedEventFilter;
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+    @Mock
+    private Consumer<?, ?> consumer;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    // Virtual threads, so the pool needs no shutdown
+    private final KeyOrderedParallelProcessor processor = new KeyOrderedParallelProcessor("test", 2, 2, true);
+    private OutboxEventParallelConsumer underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new OutboxEventParallelConsumer(objectMapper, processedEventService, processedEventFilter,
+                processor, deadLetterRecoverer, 2, 0);
+    }
+
+    @Test
+    void retriesAFailingRecordThenDeadLettersItAndMovesOn() throws Exception {
+        // given
+        OutboxEventMessage poison = message();
+        List<ConsumerRecord<String, String>> records = List.of(record(5, objectMapper.writeValueAsString(poison)));
+        doThrow(new IllegalStateException("boom")).when(processedEventService).process(poison);
+
+        // when
+        underTest.onMessages(records, consumer);
+        underTest.onMessages(records, consumer);
+
+        // then
+        verify(processedEventService, times(2)).process(poison);
+        verify(consumer, times(1)).seek(P0, 5);
+        verify(deadLetterRecoverer, times(1)).accept(eq(records.get(0)), isNull(), isA(IllegalStateException.class));
+        verify(consumer, times(1)).commitSync(Map.of(P0, new OffsetAndMetadata(6)));
+    }
+
+    @Test
+    void deadLettersAMalformedRecordStraightAway() throws Exception {
+        // given
+        List<ConsumerRecord<String, String>> records = List.of(record(5, "{not json"));
+
+        // when
+        underTest.onMessages(records, consumer);
+
+        // then
+        verify(deadLetterRecoverer).accept(eq(records.get(0)), isNull(), isA(JsonProcessingException.class));
+        verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(6)));
+        verify(consumer, never()).seek(any(TopicPartition.class), anyLong());
+        verifyNoInteractions(processedEventService);
+    }
+
+    @Test
+    void deadLettersARecordTheDeserializerRejectedStraightAway() throws Exception {
+        // given
+        List<ConsumerRecord<String, String>> records = List.of(record(5, null));
+
+        // when
+        underTest.onMessages(records, consumer);
+
+        // then
+        verify(deadLetterRecoverer).accept(eq(records.get(0)), isNull(), isA(NullPointerException.class));
+        verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(6)));
+        verify(consumer, never()).seek(any(TopicPartition.class), anyLong());
+        verifyNoInteractions(processedEventService);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>(P0.topic(), P0.partition(), offset, UUID.randomUUID().toString(), value);
+    }
+
+    private static OutboxEventMessage message() {
+        return new OutboxEventMessage(UUID.randomUUID(), "PRODUCT", UUID.randomUUID(),
+                "PRODUCT_UPDATED", Instant.now(), "{}");
+    }
+}
@@ -0,0 +1,96 @@
+package com.thurman.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventFilterTest {
+
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void answersNotProcessedOnlyForEventsNewerThanTheSeed() {
+        // given
+        ProcessedEventFilter underTest = filter(1_000);
+        Instant seededFrom = Instant.now().minus(Duration.ofHours(1));
+        underTest.seeded(seededFrom);
+
+        // when
+        ProcessedEventFilter.Answer recent = underTest.check(UUID.randomUUID(), Instant.now());
+        ProcessedEventFilter.Answer older = underTest.check(UUID.randomUUID(), seededFrom.minusSeconds(1));
+        ProcessedEventFilter.Answer unknown = underTest.check(UUID.randomUUID(), null);
+
+        // then
+        assertThat(recent).isEqualTo(ProcessedEventFilter.Answer.NOT_PROCESSED);
+        assertThat(older).isEqualTo(ProcessedEventFilter.Answer.MAYBE);
+        assertThat(unknown).isEqualTo(ProcessedEventFilter.Answer.MAYBE);
+    }
+
+    @Test
+    void stopsTrustingOlderEventsOnceAGenerationIsDropped() {
+        // given
+        ProcessedEventFilter underTest = filter(2);
+        underTest.seeded(Instant.EPOCH);
+        Instant beforeRotation = Instant.now().minus(CLOCK_SKEW.multipliedBy(2));
+        UUID forgotten = UUID.randomUUID();
+
+        // when
+        underTest.recordProcessed(List.of(forgotten, UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), UUID.randomUUID()));
+
+        // then
+        assertThat(underTest.check(forgotten, beforeRotation)).isEqualTo(ProcessedEventFilter.Answer.PROCESSED);
+        assertThat(underTest.check(UUID.randomUUID(), beforeRotation)).isEqualTo(ProcessedEventFilter.Answer.MAYBE);
+        assertThat(underTest.check(UUID.randomUUID(), Instant.now().plus(CLOCK_SKEW.multipliedBy(2))))
+                .isEqualTo(ProcessedEventFilter.Answer.NOT_PROCESSED);
+    }
+
+    @Test
+    void asksTheDatabaseUntilSeeded() {
+        // given
+        ProcessedEventFilter underTest = filter(1_000);
+
+        // when
+        ProcessedEventFilter.Answer answer = underTest.check(UUID.randomUUID(), Instant.now());
+
+        // then
+        assertThat(answer).isEqualTo(ProcessedEventFilter.Answer.MAYBE);
+    }
+
+    @Test
+    void asksTheDatabaseAgainFromASeedRequestUntilThatSeedCompletes() {
+        // given
+        ProcessedEventFilter underTest = filter(1_000);
+        underTest.seeded(Instant.EPOCH);
+
+        // when
+        underTest.requestSeed();
+        ProcessedEventFilter.Answer answer = underTest.check(UUID.randomUUID(), Instant.now());
+
+        // then
+        assertThat(answer).isEqualTo(ProcessedEventFilter.Answer.MAYBE);
+    }
+
+    private ProcessedEventFilter filter(long expectedIds) {
+        return new ProcessedEventFilter(new JdbcTemplate(dataSource), transactionManager, new SimpleMeterRegistry(),
+                true, expectedIds, 0.001, 100, CLOCK_SKEW);
+    }
+}
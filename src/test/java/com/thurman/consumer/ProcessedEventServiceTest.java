@@ -0,0 +1,114 @@
+package com.thurman.consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventServiceTest {
+
+    @Mock
+    private ProcessedEventRepository repo;
+    @Mock
+    private ProcessedEventFilter filter;
+    private ProcessedEventService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ProcessedEventService(repo, filter);
+    }
+
+    @Test
+    void processAllSkipsKnownAndRepeatedEvents() {
+        // given
+        OutboxEventMessage seen = message();
+        OutboxEventMessage fresh = message();
+        when(filter.check(any(), any())).thenReturn(ProcessedEventFilter.Answer.MAYBE);
+        when(repo.findProcessedIds(Set.of(seen.id(), fresh.id()))).thenReturn(Set.of(seen.id()));
+
+        // when
+        int processed = underTest.processAll(List.of(seen, fresh, fresh));
+
+        // then
+        assertThat(processed).isEqualTo(1);
+        verify(repo).insertProcessed(List.of(fresh));
+        verify(filter).recordProcessed(Set.of(fresh.id()));
+    }
+
+    @Test
+    void processAllOnlyAsksTheDatabaseAboutPossibleHits() {
+        // given
+        OutboxEventMessage recent = message();
+        OutboxEventMessage unseen = message();
+        OutboxEventMessage possible = message();
+        when(filter.check(recent.id(), recent.createdAt())).thenReturn(ProcessedEventFilter.Answer.PROCESSED);
+        when(filter.check(unseen.id(), unseen.createdAt())).thenReturn(ProcessedEventFilter.Answer.NOT_PROCESSED);
+        when(filter.check(possible.id(), possible.createdAt())).thenReturn(ProcessedEventFilter.Answer.MAYBE);
+        when(repo.findProcessedIds(Set.of(possible.id()))).thenReturn(Set.of());
+
+        // when
+        int processed = underTest.processAll(List.of(recent, unseen, possible));
+
+        // then
+        assertThat(processed).isEqualTo(2);
+        verify(repo).insertProcessed(List.of(unseen, possible));
+    }
+
+    @Test
+    void processInsertsTheMessage() {
+        // given
+        OutboxEventMessage msg = message();
+
+        // when
+        underTest.process(msg);
+
+        // then
+        verify(repo).insertProcessed(List.of(msg));
+        verify(filter).recordProcessed(List.of(msg.id()));
+    }
+
+    @Test
+    void definitelyNewEventsSkipTheDatabase() {
+        // given
+        OutboxEventMessage msg = message();
+        when(filter.check(msg.id(), msg.createdAt())).thenReturn(ProcessedEventFilter.Answer.NOT_PROCESSED);
+
+        // when
+        boolean processed = underTest.isAlreadyProcessed(msg);
+
+        // then
+        assertThat(processed).isFalse();
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void processAllWritesNothingWhenEverythingIsADuplicate() {
+        // given
+        OutboxEventMessage seen = message();
+        when(filter.check(seen.id(), seen.createdAt())).thenReturn(ProcessedEventFilter.Answer.MAYBE);
+        when(repo.findProcessedIds(any())).thenReturn(Set.of(seen.id()));
+
+        // when
+        int processed = underTest.processAll(List.of(seen));
+
+        // then
+        assertThat(processed).isZero();
+        verify(repo, never()).insertProcessed(any());
+    }
+
+    private static OutboxEventMessage message() {
+        return new OutboxEventMessage(UUID.randomUUID(), "PRODUCT", UUID.randomUUID(),
+                "PRODUCT_UPDATED", Instant.now(), "{}");
+    }
+}
@@ -0,0 +1,78 @@
+package com.thurman.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thurman.product.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheSyncConsumerTest {
+
+    @Mock
+    private ProductService productService;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProductCacheSyncConsumer underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ProductCacheSyncConsumer(objectMapper, productService, meterRegistry);
+    }
+
+    @Test
+    void refreshesTheProductOfAProductEvent() throws Exception {
+        // given
+        UUID productId = UUID.randomUUID();
+
+        // when
+        underTest.onMessage(record(event("PRODUCT_UPDATED", productId)));
+
+        // then
+        verify(productService).refreshCachedProduct(productId);
+        assertThat(meterRegistry.get("products.cache.sync.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresOtherEventTypes() throws Exception {
+        // when
+        underTest.onMessage(record(event("ORDER_CREATED", UUID.randomUUID())));
+
+        // then
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void skipsFailuresWithoutBlocking() throws Exception {
+        // given
+        doThrow(new IllegalStateException("db down")).when(productService).refreshCachedProduct(any());
+
+        // when
+        underTest.onMessage(record(event("PRODUCT_DELETED", UUID.randomUUID())));
+        underTest.onMessage(record("{not json"));
+
+        // then
+        assertThat(meterRegistry.get("products.cache.sync.failures").counter().count()).isEqualTo(2);
+    }
+
+    private String event(String eventType, UUID productId) throws Exception {
+        return objectMapper.writeValueAsString(new OutboxEventMessage(
+                UUID.randomUUID(), "PRODUCT", productId, eventType, Instant.now(), "{}"));
+    }
+
+    private static ConsumerRecord<String, String> record(String value) {
+        return new ConsumerRecord<>("outbox-events", 0, 0L, "key", value);
+    }
+}
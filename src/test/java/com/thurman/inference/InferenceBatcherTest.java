@@ -0,0 +1,177 @@
+package com.thurman.inference;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InferenceBatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Sizes of the batch requests the stub inference server received
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private HttpServer stubInference;
+    private InferenceClient inferenceClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stubInference = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubInference.setExecutor(Executors.newFixedThreadPool(8));
+        stubInference.createContext("/recommendations/batch", exchange -> {
+            Map<?, ?> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+            List<?> userIds = (List<?>) request.get("user_ids");
+            batchSizes.add(userIds.size());
+            sleep(20); // per-request overhead of the model service
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Object userId : userIds) {
+                results.add(Map.of("user_id", userId, "recommendations", List.of(userId)));
+            }
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("results", results));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubInference.start();
+
+        inferenceClient = new InferenceClient(
+                RestClient.builder()
+                        .baseUrl("http://localhost:" + stubInference.getAddress().getPort())
+                        .build()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubInference.stop(0);
+    }
+
+    @Test
+    void batchesConcurrentPredictCallsAndFansResultsBackOut() throws Exception {
+        // given
+        InferenceBatcher underTest = new InferenceBatcher(
+                inferenceClient, new SimpleMeterRegistry(), true, 16, Duration.ofMillis(10), 4, 8, false
+        );
+        int callers = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+        // when
+        long start = System.nanoTime();
+        List<CompletableFuture<CompletableFuture<Object>>> submitted = new ArrayList<>();
+        for (int userId = 0; userId < callers; userId++) {
+            int id = userId;
+            submitted.add(CompletableFuture.supplyAsync(() -> underTest.submit(id), pool));
+        }
+        List<Object> results = new ArrayList<>();
+        for (var future : submitted) {
+            results.add(future.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        }
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        pool.shutdown();
+
+        // then
+        for (int userId = 0; userId < callers; userId++) {
+            assertThat(results.get(userId))
+                    .isEqualTo(Map.of("user_id", userId, "recommendations", List.of(userId)));
+        }
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(callers);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(16));
+        // 64 serial calls at 20ms each would take well over a second
+        assertThat(batchSizes.size()).isLessThanOrEqualTo(callers / 4);
+        assertThat(elapsedMs).isLessThan(1000);
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxWait() throws Exception {
+        // given
+        InferenceBatcher underTest = new InferenceBatcher(
+                inferenceClient, new SimpleMeterRegistry(), true, 100, Duration.ofMillis(5), 4, 8, false
+        );
+
+        // when
+        Object result = underTest.submit(7).get(2, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(Map.of("user_id", 7, "recommendations", List.of(7)));
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void coalescesDuplicateUsersInsideOneBatch() throws Exception {
+        // given
+        InferenceBatcher underTest = new InferenceBatcher(
+                inferenceClient, new SimpleMeterRegistry(), true, 3, Duration.ofSeconds(1), 4, 8, false
+        );
+
+        // when
+        CompletableFuture<Object> first = underTest.submit(5);
+        CompletableFuture<Object> second = underTest.submit(5);
+        CompletableFuture<Object> third = underTest.submit(6);
+
+        // then
+        assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo(second.get(2, TimeUnit.SECONDS));
+        assertThat(third.get(2, TimeUnit.SECONDS))
+                .isEqualTo(Map.of("user_id", 6, "recommendations", List.of(6)));
+        assertThat(batchSizes).containsExactly(2);
+    }
+
+    @Test
+    void runsAtMostOnePerRouteConnectionOfUnbatchedCallsAtOnce() throws Exception {
+        // given
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        stubInference.createContext("/recommendations", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("recommendations", List.of()));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        InferenceBatcher underTest = new InferenceBatcher(
+                inferenceClient, new SimpleMeterRegistry(), false, 16, Duration.ofMillis(5), 4, 2, false
+        );
+
+        // when
+        List<CompletableFuture<Object>> results = new ArrayList<>();
+        for (int userId = 0; userId < 8; userId++) {
+            results.add(underTest.submit(userId));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(maxInFlight).hasValue(2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
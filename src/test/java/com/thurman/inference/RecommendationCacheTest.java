@@ -0,0 +1,136 @@
+package com.thurman.inference;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationCacheTest {
+
+    @Mock
+    private InferenceClient inferenceClient;
+    private RecommendationCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InferenceBatcher unbatched = new InferenceBatcher(
+                inferenceClient, meterRegistry, false, 32, Duration.ofMillis(5), 4, 8, false
+        );
+        underTest = new RecommendationCache(
+                unbatched,
+                meterRegistry,
+                100,
+                Duration.ofMinutes(5),
+                Duration.ofMinutes(1)
+        );
+    }
+
+    @Test
+    void servesRepeatedRequestsFromCache() {
+        // given
+        Object recs = Map.of("recommendations", List.of(1, 2, 3));
+        when(inferenceClient.predict(7)).thenReturn(recs);
+
+        // when
+        Object first = underTest.get(7);
+        Object second = underTest.get(7);
+
+        // then
+        assertThat(first).isEqualTo(recs);
+        assertThat(second).isEqualTo(recs);
+        verify(inferenceClient, times(1)).predict(7);
+        assertThat(underTest.stats().hits()).isEqualTo(1);
+        assertThat(underTest.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void coalescesConcurrentMissesIntoOneInferenceCall() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        when(inferenceClient.predict(42)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("recommendations", List.of(101));
+        });
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+        // when
+        List<Future<Object>> results = new ArrayList<>();
+        CompletableFuture<Object> firstLoad = underTest.getAsync(42);
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> underTest.get(42)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        firstLoad.get(5, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS))
+                    .isEqualTo(Map.of("recommendations", List.of(101)));
+        }
+        pool.shutdown();
+
+        // then
+        verify(inferenceClient, times(1)).predict(42);
+        assertThat(underTest.stats().misses()).isEqualTo(1);
+        assertThat(underTest.stats().coalesced()).isEqualTo(callers);
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        // given
+        when(inferenceClient.predict(3))
+                .thenThrow(new RuntimeException("Inference call failed with status 503"))
+                .thenReturn(Map.of("recommendations", List.of(9)));
+
+        // when & then
+        assertThatThrownBy(() -> underTest.get(3))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("503");
+        assertThat(underTest.get(3)).isEqualTo(Map.of("recommendations", List.of(9)));
+        verify(inferenceClient, times(2)).predict(3);
+    }
+
+    @Test
+    void aFailedLoadIsNotCached() throws Exception {
+        // given
+        CountDownLatch fail = new CountDownLatch(1);
+        Object recs = Map.of("recommendations", List.of(4));
+        when(inferenceClient.predict(5))
+                .thenAnswer(invocation -> {
+                    fail.await(5, TimeUnit.SECONDS);
+                    throw new RuntimeException("Inference call failed with status 503");
+                })
+                .thenReturn(recs);
+
+        // when
+        CompletableFuture<Object> first = underTest.getAsync(5);
+        // Runs as soon as the load fails, before Caffeine's own cleanup of the failed entry
+        CompletableFuture<CompletableFuture<Object>> retriedOnFailure = first.handle((value, error) -> underTest.getAsync(5));
+        fail.countDown();
+
+        // then
+        assertThat(retriedOnFailure.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS)).isEqualTo(recs);
+        assertThat(first).isCompletedExceptionally();
+        verify(inferenceClient, times(2)).predict(5);
+        assertThat(underTest.stats().misses()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,91 @@
+package com.thurman.kafka;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class KafkaErrorHandlingConfigTest {
+
+    private static final TopicPartition P0 = new TopicPartition("outbox-events", 0);
+
+    @Mock
+    private DeadLetterPublishingRecoverer recoverer;
+    @Mock
+    private Consumer<String, String> consumer;
+    @Mock
+    private MessageListenerContainer container;
+    private final List<ConsumerRecord<String, String>> records = List.of(
+            new ConsumerRecord<>(P0.topic(), P0.partition(), 0, "a", "{}"),
+            new ConsumerRecord<>(P0.topic(), P0.partition(), 1, "b", "{}"));
+    private DefaultErrorHandler underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new KafkaErrorHandlingConfig().batchKafkaErrorHandler(recoverer, 3, 1, 5);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties(P0.topic()));
+        when(consumer.assignment()).thenReturn(Set.of(P0));
+        when(consumer.poll(any(Duration.class))).thenReturn(ConsumerRecords.empty());
+    }
+
+    @Test
+    void retriesAWholeBatchFailurePastTheRecordAttemptsWithoutDeadLettering() {
+        // given: the database is down for longer than the per-record attempts would last
+        AtomicInteger redeliveries = new AtomicInteger();
+        Runnable listener = () -> {
+            if (redeliveries.incrementAndGet() < 10) {
+                throw new DataAccessResourceFailureException("Connection refused");
+            }
+        };
+
+        // when
+        underTest.handleBatch(new DataAccessResourceFailureException("Connection refused"),
+                new ConsumerRecords<>(Map.of(P0, records)), consumer, container, listener);
+
+        // then
+        assertThat(redeliveries).hasValue(10);
+        verifyNoInteractions(recoverer);
+    }
+
+    @Test
+    void deadLettersOnlyTheRecordAListenerPointsAt() {
+        // given
+        Exception unreadable = new BatchListenerFailedException("Unreadable outbox event at offset 1",
+                new JsonParseException(null, "not json"), 1);
+
+        // when
+        underTest.handleBatch(unreadable, new ConsumerRecords<>(Map.of(P0, records)), consumer, container, () -> {
+        });
+
+        // then
+        verify(recoverer).accept(eq(records.get(1)), any(), any());
+        verify(recoverer, never()).accept(eq(records.get(0)), any(), any());
+    }
+}
@@ -0,0 +1,107 @@
+package com.thurman.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedParallelProcessorTest {
+
+    private static final TopicPartition P0 = new TopicPartition("outbox-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("outbox-events", 1);
+
+    private final KeyOrderedParallelProcessor underTest = new KeyOrderedParallelProcessor("test", 8, 4, false);
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void keepsOrderPerKeyAndCommitsEverythingOnSuccess() {
+        // given
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < 60; offset++) {
+            records.add(record(P0, offset, "product-" + (offset % 5)));
+        }
+        Map<String, List<Long>> seen = new ConcurrentHashMap<>();
+
+        // when
+        KeyOrderedParallelProcessor.Outcome outcome = underTest.process(records, r -> {
+            Thread.sleep(1);
+            seen.computeIfAbsent(r.key(), k -> Collections.synchronizedList(new ArrayList<>())).add(r.offset());
+        });
+
+        // then
+        assertThat(seen).hasSize(5);
+        seen.values().forEach(offsets -> assertThat(offsets).isSorted().hasSize(12));
+        assertThat(outcome.commit()).containsExactly(Map.entry(P0, new OffsetAndMetadata(60)));
+        assertThat(outcome.rewind()).isEmpty();
+    }
+
+    @Test
+    void commitsOnlyTheContiguousPrefixAndStopsTheFailedKey() {
+        // given
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(P0, 10, "a"),
+                record(P0, 11, "b"),
+                record(P0, 12, "a"),
+                record(P0, 13, "c"),
+                record(P1, 7, "d")
+        );
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        KeyOrderedParallelProcessor.Outcome outcome = underTest.process(records, r -> {
+            calls.incrementAndGet();
+            if (r.offset() == 11) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        // then: 12 and 13 are done but sit behind the gap at 11, so they'll be redelivered
+        assertThat(outcome.commit()).containsOnly(
+                Map.entry(P0, new OffsetAndMetadata(11)),
+                Map.entry(P1, new OffsetAndMetadata(8)));
+        assertThat(outcome.rewind()).containsExactly(Map.entry(P0, 11L));
+        assertThat(calls).hasValue(5);
+    }
+
+    @Test
+    void aFailureHoldsBackLaterRecordsOfTheSameKey() {
+        // given
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(P0, 0, "a"),
+                record(P0, 1, "a"),
+                record(P0, 2, "b")
+        );
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        KeyOrderedParallelProcessor.Outcome outcome = underTest.process(records, r -> {
+            if (r.offset() == 0) {
+                throw new IllegalStateException("boom");
+            }
+            handled.add(r.offset());
+        });
+
+        // then
+        assertThat(handled).containsExactly(2L);
+        assertThat(outcome.commit()).isEmpty();
+        assertThat(outcome.rewind()).containsExactly(Map.entry(P0, 0L));
+    }
+
+    private static ConsumerRecord<String, String> record(TopicPartition tp, long offset, String key) {
+        return new ConsumerRecord<>(tp.topic(), tp.partition(), offset, key, "{}");
+    }
+}
@@ -0,0 +1,72 @@
+package com.thurman.outbox;
+
+import com.thurman.AbstractTestConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drain rate of a backlogged outbox against a real Postgres, with Kafka acking instantly so
+ * the number is the publisher's own claim + bookkeeping cost. Run with
+ * {@code mvn verify -Dit.test=OutboxDrainBenchmarkIT}.
+ */
+@Slf4j
+@TestPropertySource(properties = {
+        "OUTBOX_BATCH_SIZE=500",
+        // Keep the scheduled poll out of the measurement
+        "OUTBOX_PUBLISH_DELAY_MS=3600000"
+})
+class OutboxDrainBenchmarkIT extends AbstractTestConfig {
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        jdbcTemplate.update("DELETE FROM outbox_events");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000})
+    void drainsBacklog(int backlog) {
+        // given
+        jdbcTemplate.update("""
+                INSERT INTO outbox_events (id, event_type, aggregate_id, payload, created_at)
+                SELECT gen_random_uuid(), 'PRODUCT_UPDATED', gen_random_uuid()::text,
+                       jsonb_build_object('stockLevel', n), now() - make_interval(secs => ? - n)
+                FROM generate_series(1, ?) AS n
+                """, (double) backlog, backlog);
+        jdbcTemplate.execute("ANALYZE outbox_events");
+
+        // when
+        long start = System.nanoTime();
+        outboxPublisher.publishNewEvents();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        Integer left = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_events WHERE status <> 'SENT'", Integer.class);
+        double eventsPerSecond = backlog * 1000.0 / Math.max(elapsedMs, 1);
+        log.info("Outbox drain: {} events in {}ms ({} events/s)", backlog, elapsedMs, Math.round(eventsPerSecond));
+        assertThat(left).isZero();
+    }
+}
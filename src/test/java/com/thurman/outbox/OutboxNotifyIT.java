@@ -0,0 +1,69 @@
+package com.thurman.outbox;
+
+import com.thurman.AbstractTestConfig;
+import com.thurman.product.NewProductRequest;
+import com.thurman.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = {
+        "OUTBOX_WAKEUP_MODE=notify",
+        // Far beyond the assertion below: only the NOTIFY can explain a fast publish
+        "OUTBOX_SAFETY_POLL_MS=60000"
+})
+class OutboxNotifyIT extends AbstractTestConfig {
+
+    @Autowired
+    private ProductService productService;
+    @MockBean
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private volatile CountDownLatch sent;
+    private final AtomicLong sentAtNanos = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            sentAtNanos.set(System.nanoTime());
+            sent.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @Test
+    void publishesWithinMillisecondsOfCommit() throws Exception {
+        // given: one round trip to warm up the listener connection and code paths
+        createProductAndAwaitPublish();
+
+        // when
+        long latencyMs = createProductAndAwaitPublish();
+
+        // then
+        assertThat(latencyMs).isLessThan(100);
+    }
+
+    private long createProductAndAwaitPublish() throws InterruptedException {
+        sent = new CountDownLatch(1);
+        productService.saveNewProduct(new NewProductRequest(
+                "Laptop", "1gb ram etc", BigDecimal.TEN, 100, "https://amigoscode.com/laptop.png"
+        ));
+        long committedAtNanos = System.nanoTime();
+
+        assertThat(sent.await(10, TimeUnit.SECONDS)).isTrue();
+        return TimeUnit.NANOSECONDS.toMillis(sentAtNanos.get() - committedAtNanos);
+    }
+}
@@ -0,0 +1,206 @@
+package com.thurman.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thurman.consumer.OutboxEventMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxPublisherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OutboxPublisher underTest;
+
+    @BeforeEach
+    void setUp() {
+        OutboxTopicRouter router = new OutboxTopicRouter(List.of("PRODUCT_*=product-events"), "outbox-events");
+        underTest = new OutboxPublisher(outboxEventRepository, kafkaTemplate, router, objectMapper, "publisher-a", 1, false);
+        ReflectionTestUtils.setField(underTest, "batchSize", 3);
+        ReflectionTestUtils.setField(underTest, "sendTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(underTest, "claimLeaseMs", 60_000L);
+        ReflectionTestUtils.setField(underTest, "retryBatchSize", 2);
+    }
+
+    @Test
+    void firesAllSendsBeforeAwaitingAndMarksEachResult() {
+        // given
+        OutboxEvent ok = event();
+        OutboxEvent broken = event();
+        OutboxEvent pending = event();
+        claims(ok, broken, pending);
+
+        CompletableFuture<SendResult<String, String>> neverAcked = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+                .thenReturn(neverAcked);
+
+        // when
+        int sent = underTest.publishBatch();
+
+        // then
+        assertThat(sent).isEqualTo(1);
+        verify(outboxEventRepository).claimBatch("publisher-a", 3, Duration.ofMinutes(1));
+        verify(kafkaTemplate, times(3)).send(anyString(), anyString(), anyString());
+        verify(kafkaTemplate).flush();
+        ArgumentCaptor<Map<UUID, String>> failed = ArgumentCaptor.forClass(Map.class);
+        verify(outboxEventRepository).recordResults(eq("publisher-a"), eq(List.of(ok.getId())), eq(List.of()), failed.capture());
+        assertThat(failed.getValue()).containsOnlyKeys(broken.getId(), pending.getId());
+        assertThat(failed.getValue().get(broken.getId())).isEqualTo("broker unavailable");
+    }
+
+    @Test
+    void routesByEventTypeAndKeysByAggregate() throws Exception {
+        // given
+        UUID productId = UUID.randomUUID();
+        OutboxEvent created = new OutboxEvent(UUID.randomUUID(), "PRODUCT_CREATED", productId.toString(), "{\"name\":\"x\"}");
+        OutboxEvent other = new OutboxEvent(UUID.randomUUID(), "USER_SIGNED_UP", productId.toString(), "{}");
+        claims(created, other);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        underTest.publishBatch();
+
+        // then
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq("product-events"), eq(productId.toString()), value.capture());
+        verify(kafkaTemplate).send(eq("outbox-events"), eq(productId.toString()), anyString());
+        OutboxEventMessage msg = objectMapper.readValue(value.getValue(), OutboxEventMessage.class);
+        assertThat(msg.id()).isEqualTo(created.getId());
+        assertThat(msg.aggregateType()).isEqualTo("PRODUCT");
+        assertThat(msg.aggregateId()).isEqualTo(productId);
+        assertThat(msg.payloadJson()).isEqualTo("{\"name\":\"x\"}");
+    }
+
+    @Test
+    void compactionPublishesOnlyTheLatestEventPerAggregate() throws Exception {
+        // given
+        ReflectionTestUtils.setField(underTest, "compactionEnabled", true);
+        String productId = UUID.randomUUID().toString();
+        OutboxEvent first = new OutboxEvent(UUID.randomUUID(), "PRODUCT_UPDATED", productId, "{\"price\":1}");
+        OutboxEvent unrelated = event();
+        OutboxEvent latest = new OutboxEvent(UUID.randomUUID(), "PRODUCT_UPDATED", productId, "{\"price\":3}");
+        claims(first, unrelated, latest);
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        int done = underTest.publishBatch();
+
+        // then
+        assertThat(done).isEqualTo(3);
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq("product-events"), eq(productId), value.capture());
+        assertThat(objectMapper.readValue(value.getValue(), OutboxEventMessage.class).id()).isEqualTo(latest.getId());
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), anyString());
+        verify(outboxEventRepository).recordResults("publisher-a",
+                List.of(unrelated.getId(), latest.getId()), List.of(first.getId()), Map.of());
+    }
+
+    @Test
+    void keepsDrainingWhileBatchesComeBackFull() {
+        // given
+        OutboxEvent a = event(), b = event(), c = event(), d = event();
+        when(outboxEventRepository.claimBatch(eq("publisher-a"), anyInt(), any()))
+                .thenReturn(List.of(a, b, c))
+                .thenReturn(List.of(d))
+                .thenReturn(List.of());
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        underTest.publishNewEvents();
+
+        // then
+        verify(outboxEventRepository, times(2)).claimBatch(eq("publisher-a"), anyInt(), any());
+        verify(outboxEventRepository).recordResults("publisher-a", List.of(a.getId(), b.getId(), c.getId()), List.of(), Map.of());
+        verify(outboxEventRepository).recordResults("publisher-a", List.of(d.getId()), List.of(), Map.of());
+    }
+
+    @Test
+    void retryStageRepublishesOnlyDueFailuresWithinItsCapacity() {
+        // given
+        OutboxEvent due = event();
+        when(outboxEventRepository.claimRetries("publisher-a", 2, Duration.ofMinutes(1))).thenReturn(List.of(due));
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        underTest.retryFailedEvents();
+
+        // then
+        verify(outboxEventRepository, never()).claimBatch(anyString(), anyInt(), any());
+        verify(outboxEventRepository).recordResults("publisher-a", List.of(due.getId()), List.of(), Map.of());
+    }
+
+    @Test
+    void retryStageSupersedesFailuresAlreadyOvertakenOnTheirTopic() {
+        // given
+        OutboxEvent overtaken = event();
+        OutboxEvent otherTopic = event();
+        when(outboxEventRepository.claimRetries("publisher-a", 2, Duration.ofMinutes(1)))
+                .thenReturn(List.of(overtaken, otherTopic));
+        when(outboxEventRepository.findNewerSentEventTypes(List.of(overtaken.getId(), otherTopic.getId())))
+                .thenReturn(Map.of(overtaken.getId(), Set.of("PRODUCT_UPDATED"), otherTopic.getId(), Set.of("ORDER_PLACED")));
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        underTest.retryFailedEvents();
+
+        // then
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), anyString());
+        verify(kafkaTemplate).send(eq("product-events"), eq(otherTopic.getAggregateId()), anyString());
+        verify(outboxEventRepository).recordResults("publisher-a",
+                List.of(otherTopic.getId()), List.of(overtaken.getId()), Map.of());
+    }
+
+    @Test
+    void doesNothingWhenNothingIsClaimable() {
+        // given
+        when(outboxEventRepository.claimBatch(eq("publisher-a"), anyInt(), any())).thenReturn(List.of());
+
+        // when
+        underTest.publishNewEvents();
+
+        // then
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).recordResults(anyString(), any(), any(), any());
+    }
+
+    private void claims(OutboxEvent... events) {
+        when(outboxEventRepository.claimBatch(eq("publisher-a"), anyInt(), any())).thenReturn(List.of(events));
+    }
+
+    private static OutboxEvent event() {
+        UUID id = UUID.randomUUID();
+        return new OutboxEvent(id, "PRODUCT_UPDATED", id.toString(), "{}");
+    }
+}
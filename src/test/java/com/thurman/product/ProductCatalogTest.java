@@ -0,0 +1,129 @@
+package com.thurman.product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    private ProductCatalog underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ProductCatalog(productRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void appliesWritesInPlaceWithoutReloading() {
+        // given
+        Product a = product("A", 10);
+        Product b = product("B", 20);
+        when(productRepository.findAll()).thenReturn(List.of(a, b));
+        List<ProductResponse> before = underTest.all();
+
+        // when
+        Product c = product("C", 30);
+        underTest.upsertAfterCommit(c);
+        b.setStockLevel(0);
+        underTest.upsertAfterCommit(b);
+        underTest.removeAfterCommit(a.getId());
+
+        // then
+        assertThat(underTest.all())
+                .extracting(ProductResponse::name, ProductResponse::stockLevel)
+                .containsExactly(tuple("B", 0), tuple("C", 30));
+        assertThat(before).extracting(ProductResponse::name).containsExactly("A", "B");
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void ignoresWritesBeforeFirstLoad() {
+        // given
+        Product a = product("A", 10);
+        underTest.upsertAfterCommit(product("Gone", 1));
+        when(productRepository.findAll()).thenReturn(List.of(a));
+
+        // when
+        List<ProductResponse> all = underTest.all();
+
+        // then
+        assertThat(all).extracting(ProductResponse::name).containsExactly("A");
+    }
+
+    @Test
+    void refreshesOneProductFromTheDatabase() {
+        // given
+        Product a = product("A", 10);
+        Product b = product("B", 20);
+        when(productRepository.findAll()).thenReturn(List.of(a, b));
+        underTest.all();
+        a.setName("A2");
+        when(productRepository.findById(a.getId())).thenReturn(Optional.of(a));
+        when(productRepository.findById(b.getId())).thenReturn(Optional.empty());
+
+        // when
+        underTest.refresh(a.getId());
+        underTest.refresh(b.getId());
+
+        // then
+        assertThat(underTest.all()).extracting(ProductResponse::name).containsExactly("A2");
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void keepsTheNewerVersionWhenWritesArriveOutOfOrder() {
+        // given
+        Product a = product("A", 10);
+        when(productRepository.findAll()).thenReturn(List.of(a));
+        underTest.all();
+        Instant now = Instant.now();
+
+        // when: the later commit's callback runs first
+        a.setName("A2");
+        a.setUpdatedAt(now);
+        underTest.upsertAfterCommit(a);
+        a.setName("A1");
+        a.setUpdatedAt(now.minusMillis(5));
+        underTest.upsertAfterCommit(a);
+
+        // then
+        assertThat(underTest.all()).extracting(ProductResponse::name).containsExactly("A2");
+    }
+
+    @Test
+    void reloadsOnlyOnceLoaded() {
+        // given
+        when(productRepository.findAll()).thenReturn(List.of(product("A", 10)));
+
+        // when
+        underTest.reload();
+        underTest.all();
+        underTest.reload();
+
+        // then
+        verify(productRepository, times(2)).findAll();
+    }
+
+    private static Product product(String name, int stock) {
+        Product product = new Product(UUID.randomUUID(), name, name + " description", BigDecimal.TEN, null, stock);
+        product.setCreatedAt(Instant.now());
+        product.setPublished(true);
+        return product;
+    }
+}
@@ -0,0 +1,53 @@
+package com.thurman.product;
+
+import com.thurman.exception.BadRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        // given
+        ProductResponse last = new ProductResponse(UUID.randomUUID(), "Laptop", "A laptop",
+                new BigDecimal("999.90"), null, 3, true, Instant.parse("2026-10-17T08:15:30.123456Z"), null, null);
+
+        // when
+        ProductCursor byCreated = ProductCursor.decode(ProductCursor.after(ProductSort.CREATED_AT, last).encode(), ProductSort.CREATED_AT);
+        ProductCursor byPrice = ProductCursor.decode(ProductCursor.after(ProductSort.PRICE, last).encode(), ProductSort.PRICE);
+
+        // then
+        assertThat(byCreated).isEqualTo(new ProductCursor(ProductSort.CREATED_AT, "2026-10-17T08:15:30.123456Z", last.id()));
+        assertThat(byPrice).isEqualTo(new ProductCursor(ProductSort.PRICE, "999.90", last.id()));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        // given
+        String token = new ProductCursor(ProductSort.PRICE, "10.00", UUID.randomUUID()).encode();
+
+        // when & then
+        assertThatThrownBy(() -> ProductCursor.decode(token, ProductSort.CREATED_AT))
+                .isInstanceOf(BadRequest.class)
+                .hasMessageContaining("price");
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        // given
+        String notBase64 = "%%%";
+        String badValue = new ProductCursor(ProductSort.PRICE, "cheap", UUID.randomUUID()).encode();
+
+        // when & then
+        assertThatThrownBy(() -> ProductCursor.decode(notBase64, ProductSort.PRICE))
+                .isInstanceOf(BadRequest.class);
+        assertThatThrownBy(() -> ProductCursor.decode(badValue, ProductSort.PRICE))
+                .isInstanceOf(BadRequest.class);
+    }
+}
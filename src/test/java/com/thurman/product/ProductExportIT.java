@@ -0,0 +1,146 @@
+package com.thurman.product;
+
+import com.thurman.AbstractTestConfig;
+import com.thurman.journey.ProductIT;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The catalog export against a real Postgres. The million-row case checks that heap in use
+ * stays flat while the export runs: sampled after a GC every 16 MB of output, it must never
+ * grow more than 64 MB over the starting point, where holding the rows as a list would take
+ * several hundred. Run with {@code mvn verify -Dit.test=ProductExportIT}.
+ */
+@Slf4j
+class ProductExportIT extends AbstractTestConfig {
+
+    private static final int ROWS = 1_000_000;
+    private static final long SAMPLE_EVERY_BYTES = 16L * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    @Autowired
+    private ProductExportService productExportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM product WHERE name LIKE 'export-%'");
+    }
+
+    @Test
+    void streamsAMillionRowsInFlatHeap() {
+        // given
+        insertProducts(ROWS);
+        long before = jdbcTemplate.queryForObject("SELECT count(*) FROM product", Long.class);
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+
+        // when
+        long written = productExportService.writeNdjson(out);
+
+        // then
+        log.info("Product export: {} rows, {} MB, max heap growth {} MB",
+                written, out.bytes / (1024 * 1024), out.maxGrowth / (1024 * 1024));
+        assertThat(written).isEqualTo(before);
+        assertThat(out.lines).isEqualTo(before);
+        assertThat(out.maxGrowth).isLessThan(MAX_HEAP_GROWTH_BYTES);
+    }
+
+    @Test
+    void servesGzippedNdjsonOverHttp() throws IOException {
+        // given
+        insertProducts(3);
+
+        // when
+        byte[] body = webTestClient.get()
+                .uri(ProductIT.PRODUCT_BASE_URL + "/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // then
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(ndjson.lines().filter(line -> line.contains("\"name\":\"export-")))
+                .hasSize(3)
+                .allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"));
+    }
+
+    private void insertProducts(int count) {
+        jdbcTemplate.update("""
+                INSERT INTO product (id, name, description, price, stock_level, created_at, is_published)
+                SELECT uuid_generate_v4(), 'export-' || g, 'exported product ' || g, 1 + g % 1000, g % 50,
+                       now() - g * interval '1 second', true
+                FROM generate_series(1, ?) AS g
+                """, count);
+    }
+
+    /** Discards what is written, counting lines and sampling heap in use as it goes. */
+    private static final class HeapSamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long baseline;
+        private long bytes;
+        private long lines;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private long maxGrowth;
+
+        HeapSamplingOutputStream() {
+            this.baseline = heapAfterGc();
+        }
+
+        @Override
+        public void write(int b) {
+            count(b == '\n' ? 1 : 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int newlines = 0;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    newlines++;
+                }
+            }
+            count(newlines, len);
+        }
+
+        private void count(int newlines, int len) {
+            lines += newlines;
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                maxGrowth = Math.max(maxGrowth, heapAfterGc() - baseline);
+            }
+        }
+
+        private long heapAfterGc() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.thurman.product;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductPageRepositoryImplTest {
+
+    @Test
+    void firstPageHasNoKeysetPredicate() {
+        // given
+        ProductPageQuery query = new ProductPageQuery(ProductSort.CREATED_AT, 50, null, null, null, null, null);
+        List<Object> args = new ArrayList<>();
+
+        // when
+        String sql = ProductPageRepositoryImpl.pageSql(query, args);
+
+        // then
+        assertThat(sql).doesNotContain("WHERE")
+                .endsWith("ORDER BY created_at DESC, id DESC LIMIT ?");
+        assertThat(args).isEmpty();
+    }
+
+    @Test
+    void continuesAfterCursorWithFilters() {
+        // given
+        UUID id = UUID.randomUUID();
+        ProductPageQuery query = new ProductPageQuery(
+                ProductSort.PRICE, 20, new ProductCursor(ProductSort.PRICE, "10.00", id),
+                true, true, new BigDecimal("5"), new BigDecimal("100"));
+        List<Object> args = new ArrayList<>();
+
+        // when
+        String sql = ProductPageRepositoryImpl.pageSql(query, args);
+
+        // then
+        assertThat(sql).contains("WHERE (price, id) > (?, ?) AND is_published AND stock_level > 0"
+                        + " AND price >= ? AND price <= ?")
+                .endsWith("ORDER BY price ASC, id ASC LIMIT ?");
+        assertThat(args).containsExactly(new BigDecimal("10.00"), id, new BigDecimal("5"), new BigDecimal("100"));
+    }
+
+    @Test
+    void newestFirstContinuesBeforeCursor() {
+        // given
+        UUID id = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2026-10-17T08:15:30Z");
+        ProductPageQuery query = new ProductPageQuery(
+                ProductSort.CREATED_AT, 20, new ProductCursor(ProductSort.CREATED_AT, createdAt.toString(), id),
+                false, null, null, null);
+        List<Object> args = new ArrayList<>();
+
+        // when
+        String sql = ProductPageRepositoryImpl.pageSql(query, args);
+
+        // then
+        assertThat(sql).contains("WHERE (created_at, id) < (?, ?) AND NOT is_published ORDER BY");
+        assertThat(args).containsExactly(OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC), id);
+    }
+}
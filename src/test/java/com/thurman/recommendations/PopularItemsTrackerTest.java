@@ -0,0 +1,81 @@
+package com.thurman.recommendations;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PopularItemsTrackerTest {
+
+    private PopularItemsTracker underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new PopularItemsTracker(
+                null, 3, 4, Duration.ofMinutes(10), Duration.ofHours(24), List.of(1, 2, 3)
+        );
+    }
+
+    @Test
+    void usesDefaultsUntilTrafficIsSeen() {
+        // when
+        underTest.refresh();
+
+        // then
+        assertThat(underTest.top()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void ranksItemsByServedCount() {
+        // given
+        underTest.record(List.of(10, 20, 30));
+        underTest.record(List.of(20, 30));
+        underTest.record(List.of(30));
+        underTest.record(List.of(40));
+
+        // when
+        underTest.refresh();
+
+        // then
+        assertThat(underTest.top()).containsExactly(30, 20, 10);
+    }
+
+    @Test
+    void recentTrafficOutranksOlderTraffic() {
+        // given: 10 was hot an hour ago
+        for (int i = 0; i < 8; i++) {
+            underTest.record(List.of(10));
+        }
+        underTest.applyDecay(Duration.ofHours(1)); // six half-lives: 8 -> 0.125
+
+        // and 20 is hot now
+        underTest.record(List.of(20));
+
+        // when
+        underTest.refresh();
+
+        // then
+        assertThat(underTest.top()).startsWith(20, 10);
+    }
+
+    @Test
+    void keepsAtMostMaxTrackedItems() {
+        // given
+        for (int item = 1; item <= 10; item++) {
+            for (int hits = 0; hits < item; hits++) {
+                underTest.record(List.of(item));
+            }
+        }
+
+        // when
+        underTest.refresh();
+        underTest.record(List.of(1));
+        underTest.refresh();
+
+        // then: items 1..6 were pruned, 1 comes back with a single fresh hit
+        assertThat(underTest.top()).containsExactly(10, 9, 8);
+    }
+}
@@ -0,0 +1,186 @@
+package com.thurman.recommendations;
+
+import com.thurman.inference.InferenceClient;
+import com.thurman.inference.ReactiveInferenceClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    private InferenceClient inferenceClient;
+    @Mock
+    private ReactiveInferenceClient reactiveInferenceClient;
+    private CircuitBreaker circuitBreaker;
+    private RecommendationService underTest;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = CircuitBreaker.of("inference", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        PopularItemsTracker popularItems = new PopularItemsTracker(
+                null, 5, 100, Duration.ofHours(1), Duration.ofHours(24), List.of(1, 2, 3)
+        );
+        underTest = new RecommendationService(
+                inferenceClient, reactiveInferenceClient, popularItems, circuitBreaker,
+                Duration.ofMillis(200), 10, 1, Duration.ofMillis(10), false
+        );
+    }
+
+    @Test
+    void returnsModelRecommendations() {
+        // given
+        when(inferenceClient.recommendations(1L))
+                .thenReturn(Map.of("recommendations", List.of(5, 6, 7)));
+
+        // when
+        Map<String, Object> body = underTest.recommend(1L);
+
+        // then
+        assertThat(body)
+                .containsEntry("recommendations", List.of(5, 6, 7))
+                .containsEntry("source", "ml")
+                .containsEntry("user_id", 1L);
+    }
+
+    @Test
+    void fallsBackOnColdStart() {
+        // given
+        when(inferenceClient.recommendations(2L)).thenReturn(Map.of("recommendations", List.of()));
+
+        // when
+        Map<String, Object> body = underTest.recommend(2L);
+
+        // then
+        assertThat(body)
+                .containsEntry("recommendations", List.of(1, 2, 3))
+                .containsEntry("source", "fallback_popular")
+                .containsEntry("reason", "empty_recs_or_cold_start");
+    }
+
+    @Test
+    void fallsBackWhenLatencyBudgetIsExceeded() {
+        // given
+        when(inferenceClient.recommendations(3L)).thenAnswer(invocation -> {
+            Thread.sleep(1_000);
+            return Map.of("recommendations", List.of(1));
+        });
+
+        // when
+        long start = System.nanoTime();
+        Map<String, Object> body = underTest.recommend(3L);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // then
+        assertThat(body)
+                .containsEntry("source", "fallback_popular")
+                .containsEntry("reason", "latency_budget_exceeded");
+        assertThat(elapsedMs).isLessThan(800);
+    }
+
+    @Test
+    void shortCircuitsOnceTheBreakerOpens() {
+        // given
+        when(inferenceClient.recommendations(anyLong()))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            assertThat(underTest.recommend(i)).containsEntry("reason", "inference_error");
+        }
+        Map<String, Object> body = underTest.recommend(99L);
+
+        // then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(body)
+                .containsEntry("source", "fallback_popular")
+                .containsEntry("reason", "circuit_open");
+        assertThat(circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()).isEqualTo(1);
+        verify(inferenceClient, times(4)).recommendations(anyLong());
+    }
+
+    @Test
+    void reactiveReturnsModelRecommendations() {
+        // given
+        when(reactiveInferenceClient.recommendations(1L))
+                .thenReturn(Mono.just(Map.of("recommendations", List.of(5, 6))));
+
+        // when
+        Map<String, Object> body = underTest.recommendReactive(1L).block();
+
+        // then
+        assertThat(body)
+                .containsEntry("recommendations", List.of(5, 6))
+                .containsEntry("source", "ml");
+    }
+
+    @Test
+    void reactiveRetriesTransientErrorsOnce() {
+        // given
+        WebClientResponseException unavailable = WebClientResponseException.create(
+                503, "Service Unavailable", null, null, null);
+        when(reactiveInferenceClient.recommendations(2L))
+                .thenReturn(Mono.error(unavailable))
+                .thenReturn(Mono.just(Map.of("recommendations", List.of(8))));
+
+        // when
+        Map<String, Object> body = underTest.recommendReactive(2L).block();
+
+        // then
+        assertThat(body).containsEntry("recommendations", List.of(8));
+        verify(reactiveInferenceClient, times(2)).recommendations(2L);
+    }
+
+    @Test
+    void reactiveFallsBackWhenLatencyBudgetIsExceeded() {
+        // given
+        when(reactiveInferenceClient.recommendations(3L))
+                .thenReturn(Mono.<Map<String, Object>>never());
+
+        // when
+        Map<String, Object> body = underTest.recommendReactive(3L).block(Duration.ofSeconds(2));
+
+        // then
+        assertThat(body)
+                .containsEntry("source", "fallback_popular")
+                .containsEntry("reason", "latency_budget_exceeded");
+    }
+
+    @Test
+    void reactiveBudgetOverrunsCountAsBreakerFailures() {
+        // given
+        when(reactiveInferenceClient.recommendations(anyLong()))
+                .thenReturn(Mono.<Map<String, Object>>never());
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            underTest.recommendReactive(i).block(Duration.ofSeconds(2));
+        }
+        Map<String, Object> body = underTest.recommendReactive(99L).block(Duration.ofSeconds(2));
+
+        // then
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(4);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(body).containsEntry("reason", "circuit_open");
+    }
+}
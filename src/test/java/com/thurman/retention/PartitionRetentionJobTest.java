@@ -0,0 +1,59 @@
+package com.thurman.retention;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionRetentionJobTest {
+
+    @Test
+    void expiresOnlyWholeDaysPastRetention() {
+        // given
+        LocalDate today = LocalDate.of(2026, 10, 17);
+        List<String> partitions = List.of(
+                "outbox_events_default",
+                "outbox_events_p20261008",
+                "outbox_events_p20261009",
+                "outbox_events_p20261010",
+                "outbox_events_p20261011",
+                "outbox_events_p20261017",
+                "outbox_events_p2026oops"
+        );
+
+        // when
+        List<String> expired = PartitionRetentionJob.expiredPartitions("outbox_events", partitions, today, 7);
+
+        // then: the cutoff is 10-10 00:00, so 10-09 (ending exactly there) goes and 10-10 stays
+        assertThat(expired).containsExactly(
+                "outbox_events_p20261008",
+                "outbox_events_p20261009"
+        );
+    }
+
+    @Test
+    void alsoCreatesDaysStrandedInTheDefaultPartition() {
+        // given
+        LocalDate today = LocalDate.of(2026, 10, 17);
+        List<LocalDate> stranded = List.of(LocalDate.of(2026, 10, 12), LocalDate.of(2026, 10, 18));
+
+        // when
+        List<LocalDate> days = PartitionRetentionJob.daysToCreate(today, 2, stranded);
+
+        // then
+        assertThat(days).containsExactly(
+                LocalDate.of(2026, 10, 12),
+                LocalDate.of(2026, 10, 17),
+                LocalDate.of(2026, 10, 18),
+                LocalDate.of(2026, 10, 19)
+        );
+    }
+
+    @Test
+    void namesPartitionsByUtcDay() {
+        assertThat(PartitionRetentionJob.partitionName("processed_events", LocalDate.of(2026, 1, 5)))
+                .isEqualTo("processed_events_p20260105");
+    }
+}